@@ -0,0 +1,89 @@
+package com.xml2j.benchmarks;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.xml2j.benchmarks.catalog.CatalogTask;
+
+/**
+ * Buffering of text delivered in chunks by characters, and conversion of the
+ * buffer to the value of the element. Reported per item.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CharactersBenchmark {
+	static final int ITEMS = 100;
+
+	/** the length of the text of each item. */
+	@Param({ "16", "1024" })
+	public int length;
+
+	/** the number of characters per characters event. */
+	@Param({ "1", "64" })
+	public int chunk;
+
+	/** "eager" creates a String per element, "lazy" sets the content as a CharSequence. */
+	@Param({ "eager", "lazy" })
+	public String content;
+
+	private CatalogTask task;
+	private final InputSource input = new InputSource(new ByteArrayInputStream(new byte[0]));
+
+	@Setup
+	public void setup() throws Exception {
+		task = new CatalogTask(Fixtures.configuration(
+				"catalog/item/@process=true",
+				"catalog/item/@detach=true",
+				"xml2j.content=" + content),
+				new DefaultHandler(), ReplayReader.backend(ITEMS, length, chunk));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ITEMS)
+	public void characters(final Blackhole bh) throws Exception {
+		task.prepareStart(input, (evt, data) -> bh.consume(data));
+		task.processXML();
+	}
+}
@@ -0,0 +1,114 @@
+package com.xml2j.benchmarks;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.xml2j.benchmarks.catalog.Catalog;
+import com.xml2j.benchmarks.catalog.Item;
+import com.xml2j.util.Printer;
+import com.xml2j.util.PrinterWriter;
+
+/**
+ * Allocation, attributes and printing of ComplexDataType.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataTypeBenchmark {
+	static final int ITEMS = 100;
+
+	/** Writer that discards its output. */
+	static final class NullWriter extends Writer {
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+		}
+
+		@Override
+		public void write(String str, int off, int len) {
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	private Catalog catalog;
+	private Printer out;
+
+	@Setup
+	public void setup() {
+		catalog = new Catalog("catalog", null);
+		catalog.setTitle("Benchmark");
+		for (int i = 0; i != ITEMS; i++) {
+			Item item = new Item("item", catalog);
+			item.setAttr("id", Integer.toString(i));
+			item.setAttr("currency", "EUR");
+			item.setName("item " + i);
+			item.setPrice("9.95");
+			catalog.addItem(item);
+		}
+		out = new PrinterWriter(new PrintWriter(new NullWriter()));
+	}
+
+	@Benchmark
+	public Item allocate() {
+		return Item.ALLOCATOR.newInstance("item", catalog);
+	}
+
+	@Benchmark
+	public Item allocateWithAttributes() {
+		Item item = Item.ALLOCATOR.newInstance("item", catalog);
+		item.setAttr("id", "42");
+		item.setAttr("currency", "EUR");
+		item.setAttr("status", "active");
+		return item;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ITEMS)
+	public void print() {
+		catalog.print(out);
+	}
+}
@@ -0,0 +1,83 @@
+package com.xml2j.benchmarks;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.xml2j.benchmarks.catalog.CatalogTask;
+import com.xml2j.xml.core.ParserConfiguration;
+
+/**
+ * Dispatch of startElement and endElement through the handler tree, without
+ * tokenizing: the events are replayed by a ReplayReader. Reported per element
+ * (catalog/item plus its name child).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+	static final int ITEMS = 1000;
+
+	/** "reader": handlers connect to the reader, "table": the XMLDispatcher routes the events. */
+	@Param({ "reader", "table" })
+	public String dispatch;
+
+	private CatalogTask task;
+	private final InputSource input = new InputSource(new ByteArrayInputStream(new byte[0]));
+
+	@Setup
+	public void setup() throws Exception {
+		ParserConfiguration configuration = Fixtures.configuration(
+				"catalog/item/@process=true",
+				"catalog/item/@detach=true",
+				"xml2j.dispatch=" + dispatch);
+		task = new CatalogTask(configuration, new DefaultHandler(), ReplayReader.backend(ITEMS, 8, 8));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ITEMS * 2)
+	public void dispatch(final Blackhole bh) throws Exception {
+		task.prepareStart(input, (evt, data) -> bh.consume(data));
+		task.processXML();
+	}
+}
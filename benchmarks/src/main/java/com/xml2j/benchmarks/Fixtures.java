@@ -0,0 +1,72 @@
+package com.xml2j.benchmarks;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import com.xml2j.xml.core.ParserConfiguration;
+
+/**
+ * Configurations and documents shared by the benchmarks.
+ */
+final class Fixtures {
+	private Fixtures() {
+	}
+
+	/**
+	 * Write and load a runtime configuration.
+	 * @param properties the properties, one per line
+	 * @return the loaded configuration
+	 */
+	static ParserConfiguration configuration(String... properties) throws IOException {
+		File file = File.createTempFile("xml2j-benchmark", ".properties");
+		file.deleteOnExit();
+		try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+			out.println("#XML2J-PROPERTIES");
+			for (String p : properties) {
+				out.println(p);
+			}
+		}
+		ParserConfiguration configuration = new ParserConfiguration(file.getAbsolutePath());
+		configuration.load();
+		return configuration;
+	}
+
+	/**
+	 * @param items the number of items
+	 * @return a catalog document
+	 */
+	static byte[] document(int items) {
+		StringBuilder doc = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<catalog>\n<title>Benchmark</title>\n");
+		for (int i = 0; i != items; i++) {
+			doc.append("<item id=\"").append(i).append("\" currency=\"EUR\">")
+					.append("<name>item ").append(i).append("</name>")
+					.append("<price>").append(i % 100).append(".95</price>")
+					.append("</item>\n");
+		}
+		return doc.append("</catalog>\n").toString().getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,99 @@
+package com.xml2j.benchmarks;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.xml2j.benchmarks.catalog.CatalogTask;
+import com.xml2j.xml.core.ParserConfiguration;
+import com.xml2j.xml.parser.ParserEngine;
+
+/**
+ * Full parses of small documents, from bytes to processed elements.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+	/** the parsing backend. */
+	@Param({ "sax", "stax" })
+	public String backend;
+
+	/** the number of items in the document. */
+	@Param({ "10", "100" })
+	public int items;
+
+	private ParserConfiguration configuration;
+	private CatalogTask task;
+	private ParserEngine engine;
+	private byte[] document;
+
+	@Setup
+	public void setup() throws Exception {
+		configuration = Fixtures.configuration(
+				"catalog/item/@process=true",
+				"catalog/item/@detach=true",
+				"xml2j.backend=" + backend);
+		task = new CatalogTask(configuration);
+		engine = new ParserEngine(() -> new CatalogTask(configuration), 1).prestart(1);
+		document = Fixtures.document(items);
+	}
+
+	/** parse with the same task each time. */
+	@Benchmark
+	public void reuseTask(final Blackhole bh) throws Exception {
+		task.prepareStart(new ByteArrayInputStream(document), (evt, data) -> bh.consume(data));
+		task.processXML();
+	}
+
+	/** parse with a new task each time. */
+	@Benchmark
+	public void newTask(final Blackhole bh) throws Exception {
+		CatalogTask t = new CatalogTask(configuration);
+		t.prepareStart(new ByteArrayInputStream(document), (evt, data) -> bh.consume(data));
+		t.processXML();
+	}
+
+	/** parse with a task leased from the engine. */
+	@Benchmark
+	public void engine(final Blackhole bh) throws Exception {
+		engine.process(document, (evt, data) -> bh.consume(data));
+	}
+}
@@ -0,0 +1,137 @@
+package com.xml2j.benchmarks;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import com.xml2j.xml.parser.ParserBackend;
+
+/**
+ * XMLReader that ignores its input and replays a fixed catalog document, so
+ * the handlers are measured without the cost of tokenizing. Like a parser it
+ * delivers each event to the ContentHandler that is set at that moment.
+ */
+final class ReplayReader implements org.xml.sax.XMLReader {
+	private static final AttributesImpl NO_ATTRIBUTES = new AttributesImpl();
+
+	private final int items;
+	private final char[] text;
+	private final int chunk;
+	private final AttributesImpl attributes = new AttributesImpl();
+	private ContentHandler handler;
+	private ErrorHandler errorHandler;
+
+	/**
+	 * Constructor.
+	 * @param items the number of items
+	 * @param textLength the length of the name of each item
+	 * @param chunk the number of characters per characters event
+	 */
+	ReplayReader(int items, int textLength, int chunk) {
+		this.items = items;
+		this.text = new char[textLength];
+		for (int i = 0; i != textLength; i++) {
+			text[i] = (char) ('a' + i % 26);
+		}
+		this.chunk = chunk;
+		attributes.addAttribute("", "id", "id", "CDATA", "42");
+		attributes.addAttribute("", "currency", "currency", "CDATA", "EUR");
+	}
+
+	/**
+	 * @return a backend that provides a new replay reader for each task
+	 */
+	static ParserBackend backend(final int items, final int textLength, final int chunk) {
+		return () -> new ReplayReader(items, textLength, chunk);
+	}
+
+	public void parse(InputSource input) throws SAXException {
+		handler.startDocument();
+		handler.startElement("", "catalog", "catalog", NO_ATTRIBUTES);
+		for (int i = 0; i != items; i++) {
+			handler.startElement("", "item", "item", attributes);
+			handler.startElement("", "name", "name", NO_ATTRIBUTES);
+			for (int off = 0; off < text.length; off += chunk) {
+				handler.characters(text, off, Math.min(chunk, text.length - off));
+			}
+			handler.endElement("", "name", "name");
+			handler.endElement("", "item", "item");
+		}
+		handler.endElement("", "catalog", "catalog");
+		handler.endDocument();
+	}
+
+	public void parse(String systemId) throws SAXException {
+		parse(new InputSource(systemId));
+	}
+
+	public void setContentHandler(ContentHandler handler) {
+		this.handler = handler;
+	}
+
+	public ContentHandler getContentHandler() {
+		return handler;
+	}
+
+	public void setErrorHandler(ErrorHandler handler) {
+		this.errorHandler = handler;
+	}
+
+	public ErrorHandler getErrorHandler() {
+		return errorHandler;
+	}
+
+	public boolean getFeature(String name) {
+		return false;
+	}
+
+	public void setFeature(String name, boolean value) {
+	}
+
+	public Object getProperty(String name) {
+		return null;
+	}
+
+	public void setProperty(String name, Object value) {
+	}
+
+	public void setEntityResolver(EntityResolver resolver) {
+	}
+
+	public EntityResolver getEntityResolver() {
+		return null;
+	}
+
+	public void setDTDHandler(DTDHandler handler) {
+	}
+
+	public DTDHandler getDTDHandler() {
+		return null;
+	}
+}
@@ -0,0 +1,77 @@
+package com.xml2j.benchmarks.catalog;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.util.ArrayList;
+import java.util.List;
+
+import com.xml2j.util.Printer;
+import com.xml2j.xml.core.ComplexDataType;
+import com.xml2j.xml.core.TypeAllocator;
+
+/**
+ * Element type of catalog, written the way the generator writes it.
+ */
+public class Catalog extends ComplexDataType {
+	private static final long serialVersionUID = 1L;
+
+	/** the allocator of this type. */
+	public static final TypeAllocator<Catalog> ALLOCATOR = new TypeAllocator<Catalog>() {
+		public Catalog newInstance(String elementName, ComplexDataType parent) {
+			return new Catalog(elementName, parent);
+		}
+	};
+
+	private String title = null;
+	private final List<Item> items = new ArrayList<>();
+
+	public Catalog(String elementName, ComplexDataType parent) {
+		super(elementName, parent);
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public void setTitle(String title) {
+		this.title = title;
+	}
+
+	public List<Item> getItems() {
+		return items;
+	}
+
+	public void addItem(Item item) {
+		items.add(item);
+	}
+
+	@Override
+	protected void printElements(Printer out) {
+		if (title != null) {
+			out.print("<title>" + title + "</title>\n");
+		}
+		for (Item item : items) {
+			item.print(out);
+		}
+	}
+}
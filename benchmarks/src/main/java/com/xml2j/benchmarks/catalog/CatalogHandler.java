@@ -0,0 +1,67 @@
+package com.xml2j.benchmarks.catalog;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import com.xml2j.xml.core.ComplexDataType;
+import com.xml2j.xml.core.DataSetter;
+import com.xml2j.xml.core.XMLFragmentHandler;
+import com.xml2j.xml.parser.ParserTask;
+
+/**
+ * Handler of catalog, written the way the generator writes it.
+ */
+public class CatalogHandler extends XMLFragmentHandler<Catalog> {
+	private static final String TITLE = "title";
+	private static final String ITEM = "item";
+
+	public CatalogHandler(ParserTask task, XMLReader reader, XMLFragmentHandler<?> parent, String elementName,
+			DataSetter setter, boolean doProcess) {
+		super(task, reader, parent, elementName, Catalog.ALLOCATOR, setter, doProcess);
+
+		registerHandler(new HandlerProxy<Item>(task, reader, this, ITEM,
+				doLink(ITEM) ? new DataSetter() {
+					public void set(ComplexDataType data) {
+						getData().addItem((Item) data);
+					}
+				} : null,
+				new HandlerProxy.Allocator<Item>() {
+					public XMLFragmentHandler<Item> create(ParserTask task, XMLReader reader,
+							XMLFragmentHandler<?> parent, String elementName, DataSetter setter, boolean doProcess) {
+						return new ItemHandler(task, reader, parent, elementName, setter, doProcess);
+					}
+				}, doProcess(ITEM)) {
+		});
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		if (localName.equals(getXMLElementName())) {
+			handleElement();
+		} else if (localName.equals(TITLE)) {
+			getData().setTitle(getValue());
+		}
+	}
+}
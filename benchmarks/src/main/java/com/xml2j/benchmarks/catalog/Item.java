@@ -0,0 +1,74 @@
+package com.xml2j.benchmarks.catalog;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import com.xml2j.util.Printer;
+import com.xml2j.xml.core.ComplexDataType;
+import com.xml2j.xml.core.TypeAllocator;
+
+/**
+ * Element type of catalog/item, written the way the generator writes it.
+ */
+public class Item extends ComplexDataType {
+	private static final long serialVersionUID = 1L;
+
+	/** the allocator of this type. */
+	public static final TypeAllocator<Item> ALLOCATOR = new TypeAllocator<Item>() {
+		public Item newInstance(String elementName, ComplexDataType parent) {
+			return new Item(elementName, parent);
+		}
+	};
+
+	private String name = null;
+	private String price = null;
+
+	public Item(String elementName, ComplexDataType parent) {
+		super(elementName, parent);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getPrice() {
+		return price;
+	}
+
+	public void setPrice(String price) {
+		this.price = price;
+	}
+
+	@Override
+	protected void printElements(Printer out) {
+		if (name != null) {
+			out.print("<name>" + name + "</name>\n");
+		}
+		if (price != null) {
+			out.print("<price>" + price + "</price>\n");
+		}
+	}
+}
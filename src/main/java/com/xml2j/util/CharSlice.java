@@ -0,0 +1,101 @@
+package com.xml2j.util;
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+
+/**
+ * Read-only CharSequence view of a range of a char array.
+ * The characters are not copied, so the array must not be modified while the
+ * slice is in use. A String is only created by toString.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public final class CharSlice implements CharSequence {
+	private final char[] chars;
+	private final int offset;
+	private final int length;
+
+	/**
+	 * Constructor.
+	 * @param chars the array that holds the characters
+	 * @param offset index of the first character
+	 * @param length number of characters
+	 */
+	public CharSlice(char[] chars, int offset, int length) {
+		assert (chars != null && offset >= 0 && length >= 0 && offset + length <= chars.length);
+		this.chars = chars;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * @return the array that holds the characters
+	 */
+	public char[] array() {
+		return chars;
+	}
+
+	/**
+	 * @return index of the first character in the array
+	 */
+	public int offset() {
+		return offset;
+	}
+
+	public int length() {
+		return length;
+	}
+
+	public char charAt(int index) {
+		if (index < 0 || index >= length)
+			throw new IndexOutOfBoundsException("index: " + index);
+		return chars[offset + index];
+	}
+
+	public CharSequence subSequence(int start, int end) {
+		if (start < 0 || end > length || start > end)
+			throw new IndexOutOfBoundsException("start: " + start + ", end: " + end);
+		return new CharSlice(chars, offset + start, end - start);
+	}
+
+	/**
+	 * Removes leading and trailing whitespace in the same way as String.trim.
+	 * @return this slice if there is no whitespace to remove, a narrower slice otherwise
+	 */
+	public CharSlice trim() {
+		int b = offset;
+		int e = offset + length;
+		while (b < e && chars[b] <= ' ')
+			b++;
+		while (e > b && chars[e - 1] <= ' ')
+			e--;
+		return (b == offset && e == offset + length) ? this : new CharSlice(chars, b, e - b);
+	}
+
+	/**
+	 * Copy the characters into a new String.
+	 * @return the characters as String
+	 */
+	public String toString() {
+		return new String(chars, offset, length);
+	}
+}
@@ -59,6 +59,10 @@ public class ConsoleWriter implements Printer {
 		writer.println(s);
 	}
 
+	public void flush() {
+		writer.flush();
+	}
+
 	public void close() {
 		writer.close();
 	}		
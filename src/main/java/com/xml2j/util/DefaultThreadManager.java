@@ -54,9 +54,15 @@ public class DefaultThreadManager {
 				}
 			}
 			logger.info("{} worker {} running.", running, (running == 1 ? "thread" : "threads"));
-			try {
-				Thread.sleep(MILLIS);
-			} catch (InterruptedException e) {}
+			// wait for the first thread that is still running, at most MILLIS..
+			for (Thread thread : threads) {
+				if (thread.isAlive()) {
+					try {
+						thread.join(MILLIS);
+					} catch (InterruptedException e) {}
+					break;
+				}
+			}
 		} while (running > 0);
 
 		logger.info("{} worker {} running.", running, (running == 1 ? "thread" : "threads"));
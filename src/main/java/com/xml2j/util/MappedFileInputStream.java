@@ -0,0 +1,180 @@
+package com.xml2j.util;
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * InputStream that reads a file, or a range of a file, through memory mappings.
+ * 
+ * Reading does not involve system calls or an intermediate buffer: the bytes
+ * are copied straight from the mapped pages into the buffer of the reader.
+ * A single mapping is limited to 2 GB, so larger ranges are mapped in chunks.
+ * The file is mapped when the stream is created; the mappings stay valid after
+ * the file channel is closed and are released by the garbage collector.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public class MappedFileInputStream extends InputStream {
+	/** size of a single mapping. */
+	public static final long CHUNK_SIZE = 1L << 30;
+
+	/** the mapped chunks. */
+	private ByteBuffer[] chunks;
+	/** index of the chunk that is read. */
+	private int current = 0;
+	/** position of the mark (chunk, offset). */
+	private int markChunk = 0;
+	private int markOffset = 0;
+
+	/**
+	 * Map a complete file.
+	 * @param file the file
+	 * @throws IOException the file cannot be mapped
+	 */
+	public MappedFileInputStream(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			this.chunks = map(channel, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Map a range of a file.
+	 * @param channel the channel of the file, it is not closed by this stream
+	 * @param position the position of the first byte of the range
+	 * @param length the length of the range
+	 * @throws IOException the range cannot be mapped
+	 */
+	public MappedFileInputStream(FileChannel channel, long position, long length) throws IOException {
+		this.chunks = map(channel, position, length);
+	}
+
+	/**
+	 * Map a range of a file in chunks of at most CHUNK_SIZE bytes.
+	 * @param channel the channel of the file
+	 * @param position the position of the first byte of the range
+	 * @param length the length of the range
+	 * @return the mapped chunks
+	 * @throws IOException the range cannot be mapped
+	 */
+	public static MappedByteBuffer[] map(FileChannel channel, long position, long length) throws IOException {
+		assert (position >= 0 && length >= 0);
+		int n = (int) ((length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+		MappedByteBuffer[] mapped = new MappedByteBuffer[n];
+		for (int i = 0; i != n; i++) {
+			long offset = i * CHUNK_SIZE;
+			mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + offset, Math.min(CHUNK_SIZE, length - offset));
+		}
+		return mapped;
+	}
+
+	@Override
+	public int read() throws IOException {
+		ByteBuffer chunk = chunk();
+		return chunk == null ? -1 : chunk.get() & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0)
+			return 0;
+		ByteBuffer chunk = chunk();
+		if (chunk == null)
+			return -1;
+		int n = Math.min(len, chunk.remaining());
+		chunk.get(b, off, n);
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = 0;
+		ByteBuffer chunk;
+		while (skipped < n && (chunk = chunk()) != null) {
+			int k = (int) Math.min(n - skipped, chunk.remaining());
+			chunk.position(chunk.position() + k);
+			skipped += k;
+		}
+		return skipped;
+	}
+
+	@Override
+	public int available() throws IOException {
+		ByteBuffer chunk = chunk();
+		return chunk == null ? 0 : chunk.remaining();
+	}
+
+	@Override
+	public boolean markSupported() {
+		return true;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+		if (chunks != null && current < chunks.length) {
+			markChunk = current;
+			markOffset = chunks[current].position();
+		}
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		ensureOpen();
+		for (int i = markChunk + 1; i < chunks.length; i++) {
+			chunks[i].rewind();
+		}
+		current = markChunk;
+		if (current < chunks.length) {
+			chunks[current].position(markOffset);
+		}
+	}
+
+	@Override
+	public void close() {
+		chunks = null;
+	}
+
+	/**
+	 * @return the chunk to read from or null at the end of the range
+	 */
+	private ByteBuffer chunk() throws IOException {
+		ensureOpen();
+		while (current < chunks.length) {
+			ByteBuffer chunk = chunks[current];
+			if (chunk.hasRemaining())
+				return chunk;
+			current++;
+		}
+		return null;
+	}
+
+	private void ensureOpen() throws IOException {
+		if (chunks == null)
+			throw new IOException("Stream closed");
+	}
+}
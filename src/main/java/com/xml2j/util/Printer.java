@@ -26,6 +26,9 @@ Project root: https://sourceforge.net/projects/xml2j/
  * Common interface abstracting PrintStream and PrintWriter, via implementing
  * classes ConsoleWriter and PrinterWriter.
  * 
+ * The default methods convert to String; Utf8Printer implements them without
+ * creating Strings.
+ * 
  * @author Lolke B. Dijkstra
  *
  */
@@ -33,4 +36,44 @@ public interface Printer {
 	public void println(String s);
 	public void print(String s);
 	public void close();
+
+	/**
+	 * Print a sequence of characters as is.
+	 * @param s the characters
+	 */
+	default void print(CharSequence s) {
+		print(s.toString());
+	}
+
+	/**
+	 * Print a range of a char array as is.
+	 * @param c the array
+	 * @param off index of the first character
+	 * @param len number of characters
+	 */
+	default void print(char[] c, int off, int len) {
+		print(new String(c, off, len));
+	}
+
+	/**
+	 * Print text, escaping the characters that have a special meaning in XML.
+	 * @param s the text
+	 */
+	default void printText(CharSequence s) {
+		print(XMLEscaper.text(s));
+	}
+
+	/**
+	 * Print an attribute value, escaping the characters that have a special meaning in XML.
+	 * @param s the value
+	 */
+	default void printAttributeValue(CharSequence s) {
+		print(XMLEscaper.attribute(s));
+	}
+
+	/**
+	 * Write buffered output.
+	 */
+	default void flush() {
+	}
 }
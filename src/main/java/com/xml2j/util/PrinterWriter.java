@@ -48,6 +48,14 @@ public class PrinterWriter implements Printer {
 		writer.println(s);
 	}
 
+	public void print(char[] c, int off, int len) {
+		writer.write(c, off, len);
+	}
+
+	public void flush() {
+		writer.flush();
+	}
+
 	public void close() {
 		writer.close();		
 	}		
@@ -0,0 +1,183 @@
+package com.xml2j.util;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+/**
+ * Bounded cache of Strings, to share one instance between repeated values
+ * such as codes and enumerations.
+ * 
+ * A lookup is keyed on a range of a char array, so a hit does not create a
+ * String. Each value maps to a pair of slots: a miss replaces the least
+ * recently used String of the pair, so the cache never holds more than its
+ * capacity. Values longer than
+ * MAX_LENGTH are not cached. The cache is not thread-safe.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public final class StringCache {
+	/** default number of entries. */
+	public static final int DEFAULT_CAPACITY = 1024;
+	/** maximum length of a cached value. */
+	public static final int MAX_LENGTH = 64;
+
+	private final String[] entries;
+	private final int[] hashes;
+	/** selects the first slot of a pair. */
+	private final int mask;
+	private long hits = 0;
+	private long misses = 0;
+
+	/**
+	 * Constructor, with DEFAULT_CAPACITY entries.
+	 */
+	public StringCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor.
+	 * @param capacity the number of entries, rounded up to a power of 2 (at least 2)
+	 */
+	public StringCache(int capacity) {
+		assert (capacity > 0);
+		int n = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+		entries = new String[n];
+		hashes = new int[n];
+		mask = n - 2;
+	}
+
+	/**
+	 * Get the String for a range of characters.
+	 * @param c the characters
+	 * @param off index of the first character
+	 * @param len number of characters
+	 * @return a String equal to the characters
+	 */
+	public String get(char[] c, int off, int len) {
+		if (len > MAX_LENGTH) {
+			return new String(c, off, len);
+		}
+		int h = 0;
+		for (int i = off, end = off + len; i != end; i++) {
+			h = 31 * h + c[i];
+		}
+		int slot = spread(h) & mask;
+		String s = entries[slot];
+		if (s != null && hashes[slot] == h && s.length() == len && matches(s, c, off, len)) {
+			hits++;
+			return s;
+		}
+		s = entries[slot + 1];
+		if (s != null && hashes[slot + 1] == h && s.length() == len && matches(s, c, off, len)) {
+			hits++;
+			return promote(slot);
+		}
+		misses++;
+		return put(slot, h, new String(c, off, len));
+	}
+
+	/**
+	 * Get the shared instance of a String.
+	 * @param value the String (may be null)
+	 * @return a String equal to value
+	 */
+	public String get(String value) {
+		if (value == null || value.length() > MAX_LENGTH) {
+			return value;
+		}
+		int h = value.hashCode();
+		int slot = spread(h) & mask;
+		String s = entries[slot];
+		if (s != null && hashes[slot] == h && s.equals(value)) {
+			hits++;
+			return s;
+		}
+		s = entries[slot + 1];
+		if (s != null && hashes[slot + 1] == h && s.equals(value)) {
+			hits++;
+			return promote(slot);
+		}
+		misses++;
+		return put(slot, h, value);
+	}
+
+	/**
+	 * @return the number of lookups that returned a cached String
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of lookups that created or added a String
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return hits / (hits + misses), or 0 if there were no lookups
+	 */
+	public double getHitRate() {
+		long n = hits + misses;
+		return n == 0 ? 0 : (double) hits / n;
+	}
+
+	/**
+	 * Add a String to its pair of slots, replacing the least recently used
+	 * String of the pair.
+	 */
+	private String put(int slot, int h, String s) {
+		entries[slot + 1] = entries[slot];
+		hashes[slot + 1] = hashes[slot];
+		entries[slot] = s;
+		hashes[slot] = h;
+		return s;
+	}
+
+	/**
+	 * Make the second String of a pair the most recently used one.
+	 * @return the String
+	 */
+	private String promote(int slot) {
+		String s = entries[slot + 1];
+		int h = hashes[slot + 1];
+		entries[slot + 1] = entries[slot];
+		hashes[slot + 1] = hashes[slot];
+		entries[slot] = s;
+		hashes[slot] = h;
+		return s;
+	}
+
+	private static int spread(int h) {
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean matches(String s, char[] c, int off, int len) {
+		for (int i = 0; i != len; i++) {
+			if (s.charAt(i) != c[off + i])
+				return false;
+		}
+		return true;
+	}
+}
@@ -65,9 +65,15 @@ public class StringList extends ArrayList<String> {
 	 */
 	public void print(Printer out) {
 		for (String item : this) {
-			out.print("<" + elementName + ">");
-			out.print(item);
-			out.print("</" + elementName + ">");
+			out.print("<");
+			out.print(elementName);
+			out.print(">");
+			if (item != null) {
+				out.printText(item);
+			}
+			out.print("</");
+			out.print(elementName);
+			out.print(">");
 		}
 	}
 }
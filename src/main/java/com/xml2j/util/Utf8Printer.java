@@ -0,0 +1,258 @@
+package com.xml2j.util;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Printer that encodes to UTF-8 directly into a reusable byte buffer.
+ * 
+ * The characters of Strings, CharSequences and char arrays are encoded one by
+ * one, so no intermediate Strings or char arrays are created, also not for
+ * escaping. The buffer is written to the OutputStream or channel when it is
+ * full and by flush. The printer is not thread-safe.
+ * 
+ * IO errors are rethrown as UncheckedIOException, since the Printer
+ * interface does not declare them.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public class Utf8Printer implements Printer, Flushable, Closeable {
+	/** default size of the buffer in bytes. */
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+	/** the longest encoding of a single char (a surrogate pair takes 4 bytes for 2 chars). */
+	private static final int MAX_BYTES_PER_CHAR = 4;
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+
+	private final OutputStream out;
+	private final WritableByteChannel channel;
+	private final byte[] buf;
+	private final ByteBuffer buffer;
+	private int pos = 0;
+	/** high surrogate waiting for its low surrogate (or 0). */
+	private char pending = 0;
+
+	/**
+	 * Constructor.
+	 * @param out the stream to write to
+	 */
+	public Utf8Printer(OutputStream out) {
+		this(out, null, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Constructor.
+	 * @param out the stream to write to
+	 * @param bufferSize the size of the buffer in bytes
+	 */
+	public Utf8Printer(OutputStream out, int bufferSize) {
+		this(out, null, bufferSize);
+	}
+
+	/**
+	 * Constructor.
+	 * @param channel the channel to write to
+	 */
+	public Utf8Printer(WritableByteChannel channel) {
+		this(null, channel, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Constructor.
+	 * @param channel the channel to write to
+	 * @param bufferSize the size of the buffer in bytes
+	 */
+	public Utf8Printer(WritableByteChannel channel, int bufferSize) {
+		this(null, channel, bufferSize);
+	}
+
+	private Utf8Printer(OutputStream out, WritableByteChannel channel, int bufferSize) {
+		assert ((out != null || channel != null) && bufferSize >= MAX_BYTES_PER_CHAR);
+		this.out = out;
+		this.channel = channel;
+		this.buf = new byte[bufferSize];
+		this.buffer = ByteBuffer.wrap(buf);
+	}
+
+	public void print(String s) {
+		write(s, 0, s.length());
+	}
+
+	public void println(String s) {
+		write(s, 0, s.length());
+		write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length());
+	}
+
+	@Override
+	public void print(CharSequence s) {
+		write(s, 0, s.length());
+	}
+
+	@Override
+	public void print(char[] c, int off, int len) {
+		for (int i = off, end = off + len; i != end; i++) {
+			put(c[i]);
+		}
+	}
+
+	@Override
+	public void printText(CharSequence s) {
+		escape(s, false);
+	}
+
+	@Override
+	public void printAttributeValue(CharSequence s) {
+		escape(s, true);
+	}
+
+	/**
+	 * Print text from a char array, escaping the characters that have a special meaning in XML.
+	 * @param c the array
+	 * @param off index of the first character
+	 * @param len number of characters
+	 */
+	public void printText(char[] c, int off, int len) {
+		for (int i = off, end = off + len; i != end; i++) {
+			String r = XMLEscaper.replacement(c[i], false);
+			if (r == null) {
+				put(c[i]);
+			} else {
+				write(r, 0, r.length());
+			}
+		}
+	}
+
+	/**
+	 * Write the buffered bytes to the stream or channel and flush the stream.
+	 */
+	public void flush() {
+		drain();
+		try {
+			if (out != null) {
+				out.flush();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Flush and close the stream or channel.
+	 */
+	public void close() {
+		try {
+			flush();
+		} finally {
+			try {
+				if (out != null) {
+					out.close();
+				} else {
+					channel.close();
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private void write(CharSequence s, int start, int end) {
+		for (int i = start; i != end; i++) {
+			put(s.charAt(i));
+		}
+	}
+
+	private void escape(CharSequence s, boolean attribute) {
+		for (int i = 0, n = s.length(); i != n; i++) {
+			char c = s.charAt(i);
+			String r = XMLEscaper.replacement(c, attribute);
+			if (r == null) {
+				put(c);
+			} else {
+				write(r, 0, r.length());
+			}
+		}
+	}
+
+	private void put(char c) {
+		if (pos > buf.length - MAX_BYTES_PER_CHAR) {
+			drain();
+		}
+
+		if (pending != 0) {
+			char high = pending;
+			pending = 0;
+			if (Character.isLowSurrogate(c)) {
+				int cp = Character.toCodePoint(high, c);
+				buf[pos++] = (byte) (0xf0 | (cp >> 18));
+				buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+				buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+				buf[pos++] = (byte) (0x80 | (cp & 0x3f));
+				return;
+			}
+			// unpaired surrogate..
+			buf[pos++] = '?';
+			put(c);
+			return;
+		}
+
+		if (c < 0x80) {
+			buf[pos++] = (byte) c;
+		} else if (c < 0x800) {
+			buf[pos++] = (byte) (0xc0 | (c >> 6));
+			buf[pos++] = (byte) (0x80 | (c & 0x3f));
+		} else if (Character.isHighSurrogate(c)) {
+			pending = c;
+		} else if (Character.isLowSurrogate(c)) {
+			// unpaired surrogate..
+			buf[pos++] = '?';
+		} else {
+			buf[pos++] = (byte) (0xe0 | (c >> 12));
+			buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+			buf[pos++] = (byte) (0x80 | (c & 0x3f));
+		}
+	}
+
+	private void drain() {
+		if (pos == 0)
+			return;
+		try {
+			if (out != null) {
+				out.write(buf, 0, pos);
+			} else {
+				buffer.clear().limit(pos);
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		pos = 0;
+	}
+}
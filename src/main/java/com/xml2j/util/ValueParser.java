@@ -0,0 +1,435 @@
+package com.xml2j.util;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Converts the lexical forms of XML Schema types to Java values, reading the
+ * characters of a CharSequence (e.g. a CharSlice of the content buffer)
+ * without creating a String. Leading and trailing whitespace is ignored.
+ * 
+ * Numbers with more digits than a long holds, or doubles that cannot be
+ * converted exactly on the fast path, fall back to the JDK parsers.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public final class ValueParser {
+	/** powers of ten that are exact as double. */
+	private static final double[] POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	/** maximum number of digits of a mantissa that is exact as double. */
+	private static final int MAX_EXACT_DIGITS = 15;
+	/** maximum number of digits that fit in a long. */
+	private static final int MAX_LONG_DIGITS = 18;
+
+	private ValueParser() {
+	}
+
+	/**
+	 * Parse an xs:int.
+	 * @param s the characters
+	 * @return the value
+	 * @throws NumberFormatException not an int
+	 */
+	public static int parseInt(CharSequence s) {
+		long v = parseLong(s);
+		if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE)
+			throw invalid(s);
+		return (int) v;
+	}
+
+	/**
+	 * Parse an xs:long.
+	 * @param s the characters
+	 * @return the value
+	 * @throws NumberFormatException not a long
+	 */
+	public static long parseLong(CharSequence s) {
+		if (s == null)
+			throw new NumberFormatException("null");
+		int e = end(s);
+		int i = begin(s, e);
+		boolean negative = false;
+		if (i < e && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+			negative = s.charAt(i++) == '-';
+		}
+		if (i == e)
+			throw invalid(s);
+
+		// accumulate negatively, as in Long.parseLong..
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long v = 0;
+		for (; i < e; i++) {
+			int d = s.charAt(i) - '0';
+			if (d < 0 || d > 9 || v < limit / 10)
+				throw invalid(s);
+			v *= 10;
+			if (v < limit + d)
+				throw invalid(s);
+			v -= d;
+		}
+		return negative ? v : -v;
+	}
+
+	/**
+	 * Parse an xs:double (or xs:float), including INF, -INF and NaN.
+	 * @param s the characters
+	 * @return the value
+	 * @throws NumberFormatException not a double
+	 */
+	public static double parseDouble(CharSequence s) {
+		if (s == null)
+			throw new NumberFormatException("null");
+		int e = end(s);
+		int b = begin(s, e);
+		int i = b;
+		boolean negative = false;
+		if (i < e && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+			negative = s.charAt(i++) == '-';
+		}
+		if (matches(s, i, e, "INF"))
+			return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+		if (matches(s, b, e, "NaN"))
+			return Double.NaN;
+
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean any = false;
+		boolean point = false;
+		for (; i < e; i++) {
+			char c = s.charAt(i);
+			if (c >= '0' && c <= '9') {
+				any = true;
+				if (digits < MAX_LONG_DIGITS) {
+					if (mantissa != 0 || c != '0') {
+						mantissa = mantissa * 10 + (c - '0');
+						digits++;
+					}
+					if (point)
+						exponent--;
+				} else {
+					// digits beyond the precision of the fast path..
+					digits++;
+					if (!point)
+						exponent++;
+				}
+			} else if (c == '.' && !point) {
+				point = true;
+			} else {
+				break;
+			}
+		}
+		if (!any)
+			throw invalid(s);
+		if (i < e) {
+			char c = s.charAt(i);
+			if (c != 'e' && c != 'E')
+				throw invalid(s);
+			i++;
+			boolean negativeExponent = false;
+			if (i < e && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+				negativeExponent = s.charAt(i++) == '-';
+			}
+			if (i == e)
+				throw invalid(s);
+			int x = 0;
+			for (; i < e; i++) {
+				int d = s.charAt(i) - '0';
+				if (d < 0 || d > 9)
+					throw invalid(s);
+				if (x < 100000)
+					x = x * 10 + d;
+			}
+			exponent += negativeExponent ? -x : x;
+		}
+
+		double v;
+		if (mantissa == 0) {
+			v = 0;
+		} else if (digits <= MAX_EXACT_DIGITS && exponent >= -22 && exponent <= 22) {
+			v = exponent < 0 ? mantissa / POW10[-exponent] : mantissa * POW10[exponent];
+		} else {
+			return Double.parseDouble(s.subSequence(b, e).toString());
+		}
+		return negative ? -v : v;
+	}
+
+	/**
+	 * Parse an xs:boolean: "true", "false", "1" or "0".
+	 * @param s the characters
+	 * @return the value
+	 * @throws IllegalArgumentException not a boolean
+	 */
+	public static boolean parseBoolean(CharSequence s) {
+		if (s != null) {
+			int e = end(s);
+			int b = begin(s, e);
+			if (matches(s, b, e, "true") || matches(s, b, e, "1"))
+				return true;
+			if (matches(s, b, e, "false") || matches(s, b, e, "0"))
+				return false;
+		}
+		throw new IllegalArgumentException("Not a boolean: \"" + s + "\"");
+	}
+
+	/**
+	 * Parse an xs:decimal.
+	 * @param s the characters
+	 * @return the value
+	 * @throws NumberFormatException not a decimal
+	 */
+	public static BigDecimal parseDecimal(CharSequence s) {
+		if (s == null)
+			throw new NumberFormatException("null");
+		int e = end(s);
+		int b = begin(s, e);
+		int i = b;
+		boolean negative = false;
+		if (i < e && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+			negative = s.charAt(i++) == '-';
+		}
+		long unscaled = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean any = false;
+		boolean point = false;
+		for (; i < e; i++) {
+			char c = s.charAt(i);
+			if (c >= '0' && c <= '9') {
+				any = true;
+				if (unscaled != 0 || c != '0') {
+					digits++;
+				}
+				unscaled = unscaled * 10 + (c - '0');
+				if (point)
+					scale++;
+			} else if (c == '.' && !point) {
+				point = true;
+			} else {
+				throw invalid(s);
+			}
+			if (digits > MAX_LONG_DIGITS) {
+				return new BigDecimal(s.subSequence(b, e).toString());
+			}
+		}
+		if (!any)
+			throw invalid(s);
+		return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+	}
+
+	/**
+	 * Parse an xs:date (yyyy-mm-dd). A timezone is accepted and ignored.
+	 * @param s the characters
+	 * @return the date
+	 * @throws DateTimeParseException not a date
+	 */
+	public static LocalDate parseDate(CharSequence s) {
+		int e = end(s);
+		Cursor c = new Cursor(s, begin(s, e), e);
+		LocalDate date = c.date();
+		c.offset();
+		c.finish();
+		return date;
+	}
+
+	/**
+	 * Parse an xs:dateTime (yyyy-mm-ddThh:mm:ss[.f][timezone]). Without a
+	 * timezone, the time is taken as UTC.
+	 * @param s the characters
+	 * @return the date and time
+	 * @throws DateTimeParseException not a dateTime
+	 */
+	public static OffsetDateTime parseDateTime(CharSequence s) {
+		int e = end(s);
+		Cursor c = new Cursor(s, begin(s, e), e);
+		LocalDate date = c.date();
+		c.expect('T');
+		int hour = c.digits(2);
+		c.expect(':');
+		int minute = c.digits(2);
+		c.expect(':');
+		int second = c.digits(2);
+		int nanos = c.fraction();
+		ZoneOffset offset = c.offset();
+		c.finish();
+
+		LocalDateTime time;
+		if (hour == 24 && minute == 0 && second == 0 && nanos == 0) {
+			// end of the day..
+			time = date.plusDays(1).atStartOfDay();
+		} else {
+			try {
+				time = date.atTime(hour, minute, second, nanos);
+			} catch (DateTimeException x) {
+				throw c.error(x);
+			}
+		}
+		return OffsetDateTime.of(time, offset != null ? offset : ZoneOffset.UTC);
+	}
+
+	/**
+	 * Reads the parts of a date or dateTime.
+	 */
+	private static final class Cursor {
+		private final CharSequence s;
+		private int i;
+		private final int end;
+
+		Cursor(CharSequence s, int begin, int end) {
+			this.s = s;
+			this.i = begin;
+			this.end = end;
+		}
+
+		LocalDate date() {
+			boolean negative = i < end && s.charAt(i) == '-';
+			if (negative)
+				i++;
+			int start = i;
+			int year = 0;
+			while (i < end && s.charAt(i) >= '0' && s.charAt(i) <= '9' && i - start < 9) {
+				year = year * 10 + (s.charAt(i++) - '0');
+			}
+			if (i - start < 4)
+				throw error();
+			expect('-');
+			int month = digits(2);
+			expect('-');
+			int day = digits(2);
+			try {
+				return LocalDate.of(negative ? -year : year, month, day);
+			} catch (DateTimeException e) {
+				throw error(e);
+			}
+		}
+
+		int digits(int n) {
+			if (end - i < n)
+				throw error();
+			int v = 0;
+			for (int k = 0; k != n; k++) {
+				int d = s.charAt(i++) - '0';
+				if (d < 0 || d > 9)
+					throw error();
+				v = v * 10 + d;
+			}
+			return v;
+		}
+
+		int fraction() {
+			if (i == end || s.charAt(i) != '.')
+				return 0;
+			i++;
+			int start = i;
+			int nanos = 0;
+			for (; i < end && s.charAt(i) >= '0' && s.charAt(i) <= '9'; i++) {
+				if (i - start < 9)
+					nanos = nanos * 10 + (s.charAt(i) - '0');
+			}
+			if (i == start)
+				throw error();
+			for (int k = i - start; k < 9; k++) {
+				nanos *= 10;
+			}
+			return nanos;
+		}
+
+		ZoneOffset offset() {
+			if (i == end)
+				return null;
+			char c = s.charAt(i);
+			if (c == 'Z') {
+				i++;
+				return ZoneOffset.UTC;
+			}
+			if (c != '+' && c != '-')
+				throw error();
+			i++;
+			int h = digits(2);
+			expect(':');
+			int m = digits(2);
+			try {
+				return c == '-' ? ZoneOffset.ofHoursMinutes(-h, -m) : ZoneOffset.ofHoursMinutes(h, m);
+			} catch (DateTimeException e) {
+				throw error(e);
+			}
+		}
+
+		void expect(char c) {
+			if (i == end || s.charAt(i) != c)
+				throw error();
+			i++;
+		}
+
+		void finish() {
+			if (i != end)
+				throw error();
+		}
+
+		DateTimeParseException error(DateTimeException cause) {
+			return new DateTimeParseException(cause.getMessage(), s, Math.min(i, end), cause);
+		}
+
+		DateTimeParseException error() {
+			return new DateTimeParseException("Invalid date or time: \"" + s + "\"", s, Math.min(i, end));
+		}
+	}
+
+	private static int end(CharSequence s) {
+		int e = s.length();
+		while (e > 0 && s.charAt(e - 1) <= ' ')
+			e--;
+		return e;
+	}
+
+	private static int begin(CharSequence s, int end) {
+		int b = 0;
+		while (b < end && s.charAt(b) <= ' ')
+			b++;
+		return b;
+	}
+
+	private static boolean matches(CharSequence s, int b, int e, String literal) {
+		if (e - b != literal.length())
+			return false;
+		for (int i = 0; i != e - b; i++) {
+			if (s.charAt(b + i) != literal.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	private static NumberFormatException invalid(CharSequence s) {
+		return new NumberFormatException("For input string: \"" + s + "\"");
+	}
+}
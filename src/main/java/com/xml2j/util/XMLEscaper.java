@@ -0,0 +1,105 @@
+package com.xml2j.util;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+/**
+ * Escapes the characters that have a special meaning in XML.
+ * 
+ * In text '&amp;', '&lt;' and '&gt;' are escaped. In attribute values '"'
+ * is escaped as well, and tab, newline and carriage return are written as
+ * character references so they survive attribute value normalization.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public final class XMLEscaper {
+	private XMLEscaper() {
+	}
+
+	/**
+	 * Get the replacement of a character.
+	 * @param c the character
+	 * @param attribute true if the character is part of an attribute value
+	 * @return the replacement or null if the character is written as is
+	 */
+	public static String replacement(char c, boolean attribute) {
+		switch (c) {
+		case '&':
+			return "&amp;";
+		case '<':
+			return "&lt;";
+		case '>':
+			return "&gt;";
+		case '"':
+			return attribute ? "&quot;" : null;
+		case '\t':
+			return attribute ? "&#9;" : null;
+		case '\n':
+			return attribute ? "&#10;" : null;
+		case '\r':
+			return attribute ? "&#13;" : null;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Escape text.
+	 * @param s the text
+	 * @return the escaped text (s itself if nothing needs escaping)
+	 */
+	public static CharSequence text(CharSequence s) {
+		return escape(s, false);
+	}
+
+	/**
+	 * Escape an attribute value.
+	 * @param s the attribute value
+	 * @return the escaped value (s itself if nothing needs escaping)
+	 */
+	public static CharSequence attribute(CharSequence s) {
+		return escape(s, true);
+	}
+
+	private static CharSequence escape(CharSequence s, boolean attribute) {
+		int n = s.length();
+		int i = 0;
+		while (i != n && replacement(s.charAt(i), attribute) == null) {
+			i++;
+		}
+		if (i == n)
+			return s;
+
+		StringBuilder b = new StringBuilder(n + 16);
+		b.append(s, 0, i);
+		for (; i != n; i++) {
+			char c = s.charAt(i);
+			String r = replacement(c, attribute);
+			if (r == null) {
+				b.append(c);
+			} else {
+				b.append(r);
+			}
+		}
+		return b;
+	}
+}
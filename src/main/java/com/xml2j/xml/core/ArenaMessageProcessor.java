@@ -0,0 +1,86 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Copies the completed elements (XMLEvent.END) into a RecordArena and puts
+ * the records on a queue, for consumers on other threads. START events are
+ * ignored.
+ * 
+ * By default the element is released after it is copied, so with '@detach'
+ * and '@recycle' configured for the path the parser reuses it for the next
+ * element. The processor must then be the last one that receives the element,
+ * e.g. the last processor of a chain that a ProcessorPipeline runs; otherwise
+ * construct it with release false and release the element later. The
+ * consumers release the records they take from the queue.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public class ArenaMessageProcessor implements MessageProcessor {
+	private final RecordArena arena;
+	private final BlockingQueue<RecordArena.Record> queue;
+	/** indicates whether the element is released after it is copied. */
+	private final boolean release;
+
+	/**
+	 * Constructor, for a processor that releases the elements it copies.
+	 * @param arena where to store the elements
+	 * @param queue where to put the records, blocks the parser if it is full
+	 */
+	public ArenaMessageProcessor(RecordArena arena, BlockingQueue<RecordArena.Record> queue) {
+		this(arena, queue, true);
+	}
+
+	/**
+	 * Constructor.
+	 * @param arena where to store the elements
+	 * @param queue where to put the records, blocks the parser if it is full
+	 * @param release true to release the element after it is copied
+	 */
+	public ArenaMessageProcessor(RecordArena arena, BlockingQueue<RecordArena.Record> queue, boolean release) {
+		assert (arena != null && queue != null);
+		this.arena = arena;
+		this.queue = queue;
+		this.release = release;
+	}
+
+	/** {@inheritDoc} */
+	public void process(XMLEvent evt, ComplexDataType data) throws ProcessorException {
+		if (evt != XMLEvent.END)
+			return;
+
+		RecordArena.Record record = arena.add(data);
+		if (release) {
+			data.release();
+		}
+		try {
+			queue.put(record);
+		} catch (InterruptedException e) {
+			record.release();
+			Thread.currentThread().interrupt();
+			throw new ProcessorException(e);
+		}
+	}
+}
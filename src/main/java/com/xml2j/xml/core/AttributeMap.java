@@ -0,0 +1,373 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+
+/**
+ * Compact, insertion ordered map for the attributes of an element.
+ *
+ * Names and values are kept in parallel arrays. The array of names is shared
+ * with other elements of the same type for as long as the attributes appear in
+ * the same order, so typically an element only owns its array of values. A
+ * hash index is only built once the number of attributes exceeds
+ * INDEX_THRESHOLD; below that a lookup is a linear scan.
+ *
+ * Null names are not supported, null values are.
+ *
+ * @author Lolke B. Dijkstra
+ */
+final class AttributeMap extends AbstractMap<String, String> implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/** number of attributes above which the hash index is used. */
+	static final int INDEX_THRESHOLD = 8;
+	/** maximum number of names in a shared layout. */
+	static final int MAX_LAYOUT = 32;
+
+	private static final String[] NONE = {};
+
+	/**
+	 * The attribute names seen for an element type, in order of appearance.
+	 * The array only grows, every published array is a prefix of the next one.
+	 */
+	static final class Layout {
+		private static final ClassValue<Layout> layouts = new ClassValue<Layout>() {
+			@Override
+			protected Layout computeValue(Class<?> type) {
+				return new Layout();
+			}
+		};
+
+		private volatile String[] names = NONE;
+
+		/**
+		 * @param type the element type
+		 * @return the layout shared by elements of that type
+		 */
+		static Layout of(Class<?> type) {
+			return layouts.get(type);
+		}
+
+		/**
+		 * Get a names array that holds name at position i.
+		 * @param i the position
+		 * @param name the name
+		 * @return the shared array or null if the name does not fit in the layout
+		 */
+		String[] share(int i, String name) {
+			String[] n = names;
+			if (i < n.length) {
+				return n[i].equals(name) ? n : null;
+			}
+			synchronized (this) {
+				n = names;
+				if (i == n.length && i < MAX_LAYOUT) {
+					n = Arrays.copyOf(n, i + 1);
+					n[i] = name.intern();
+					names = n;
+				}
+			}
+			return i < n.length && n[i].equals(name) ? n : null;
+		}
+	}
+
+	/** the layout of the element type (null if names are not shared). */
+	private transient Layout layout;
+	/** attribute names, shared with the layout if shared is true. */
+	private String[] names = NONE;
+	/** attribute values. */
+	private String[] values = NONE;
+	/** number of attributes. */
+	private int size = 0;
+	/** indicates whether names is shared with the layout. */
+	private boolean shared = false;
+	/** open addressed hash index, holds position + 1 of the attribute (or 0). */
+	private transient int[] index = null;
+	/** number of structural modifications, for the iterators. */
+	private transient int modCount = 0;
+
+	/**
+	 * Constructor.
+	 * @param layout the layout of the element type (or null)
+	 */
+	AttributeMap(Layout layout) {
+		this.layout = layout;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key != null && indexOf(key.toString()) >= 0;
+	}
+
+	@Override
+	public String get(Object key) {
+		if (key == null)
+			return null;
+		int i = indexOf(key.toString());
+		return i < 0 ? null : values[i];
+	}
+
+	@Override
+	public String put(String key, String value) {
+		if (key == null)
+			throw new NullPointerException("attribute name");
+
+		int i = indexOf(key);
+		if (i >= 0) {
+			String old = values[i];
+			values[i] = value;
+			return old;
+		}
+
+		append(key, value);
+		return null;
+	}
+
+	@Override
+	public String remove(Object key) {
+		if (key == null)
+			return null;
+		int i = indexOf(key.toString());
+		if (i < 0)
+			return null;
+		String old = values[i];
+		removeAt(i);
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(values, 0, size, null);
+		if (!shared) {
+			Arrays.fill(names, 0, size, null);
+		}
+		size = 0;
+		index = null;
+		modCount++;
+	}
+
+	@Override
+	public Set<Map.Entry<String, String>> entrySet() {
+		return new AbstractSet<Map.Entry<String, String>>() {
+			@Override
+			public Iterator<Map.Entry<String, String>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	private int indexOf(String key) {
+		if (size > INDEX_THRESHOLD) {
+			if (index == null) {
+				rebuildIndex();
+			}
+			int mask = index.length - 1;
+			for (int slot = key.hashCode() & mask;; slot = (slot + 1) & mask) {
+				int i = index[slot] - 1;
+				if (i < 0)
+					return -1;
+				if (names[i] == key || names[i].equals(key))
+					return i;
+			}
+		}
+		for (int i = 0; i != size; i++) {
+			if (names[i] == key)
+				return i;
+		}
+		for (int i = 0; i != size; i++) {
+			if (names[i].equals(key))
+				return i;
+		}
+		return -1;
+	}
+
+	private void append(String key, String value) {
+		String[] n = null;
+		if ((shared || size == 0) && layout != null) {
+			n = layout.share(size, key);
+		}
+		if (n != null) {
+			names = n;
+			shared = true;
+		} else {
+			if (shared || size == names.length) {
+				names = Arrays.copyOf(names, Math.max(size + 1, Math.min(size * 2, size + 8)));
+			}
+			names[size] = key;
+			shared = false;
+		}
+
+		if (size == values.length) {
+			int capacity = shared ? Math.min(names.length, size + 4) : names.length;
+			values = Arrays.copyOf(values, Math.max(capacity, size + 1));
+		}
+		values[size++] = value;
+		modCount++;
+
+		if (index != null) {
+			if (size * 2 > index.length) {
+				rebuildIndex();
+			} else {
+				insertIndex(size - 1);
+			}
+		}
+	}
+
+	private void removeAt(int i) {
+		if (shared) {
+			names = Arrays.copyOf(names, size);
+			shared = false;
+		}
+		int tail = size - i - 1;
+		System.arraycopy(names, i + 1, names, i, tail);
+		System.arraycopy(values, i + 1, values, i, tail);
+		size--;
+		names[size] = null;
+		values[size] = null;
+		index = null;
+		modCount++;
+	}
+
+	private void rebuildIndex() {
+		int slots = Integer.highestOneBit(size * 4 - 1);
+		index = new int[slots];
+		for (int i = 0; i != size; i++) {
+			insertIndex(i);
+		}
+	}
+
+	private void insertIndex(int i) {
+		int mask = index.length - 1;
+		int slot = names[i].hashCode() & mask;
+		while (index[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		index[slot] = i + 1;
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		// the maps of one stream share the deserialized layout arrays..
+		names = Arrays.copyOf(names, size);
+		shared = false;
+	}
+
+	/**
+	 * Iterates over the attributes in insertion order.
+	 */
+	private final class EntryIterator implements Iterator<Map.Entry<String, String>> {
+		private int next = 0;
+		private int last = -1;
+		private int expected = modCount;
+
+		public boolean hasNext() {
+			return next < size;
+		}
+
+		public Map.Entry<String, String> next() {
+			if (expected != modCount)
+				throw new ConcurrentModificationException();
+			if (next >= size)
+				throw new NoSuchElementException();
+			last = next++;
+			return new Entry(last);
+		}
+
+		public void remove() {
+			if (last < 0)
+				throw new IllegalStateException();
+			if (expected != modCount)
+				throw new ConcurrentModificationException();
+			removeAt(last);
+			next = last;
+			last = -1;
+			expected = modCount;
+		}
+	}
+
+	/**
+	 * View of a single attribute.
+	 */
+	private final class Entry implements Map.Entry<String, String> {
+		private final int i;
+
+		Entry(int i) {
+			this.i = i;
+		}
+
+		public String getKey() {
+			return names[i];
+		}
+
+		public String getValue() {
+			return values[i];
+		}
+
+		public String setValue(String value) {
+			String old = values[i];
+			values[i] = value;
+			return old;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return getKey().equals(e.getKey())
+					&& (getValue() == null ? e.getValue() == null : getValue().equals(e.getValue()));
+		}
+
+		@Override
+		public int hashCode() {
+			return getKey().hashCode() ^ (getValue() == null ? 0 : getValue().hashCode());
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.util.List;
+
+/**
+ * The BatchMessageProcessor is the variant of the MessageProcessor that
+ * receives completed elements in batches rather than one at a time. Use a
+ * BatchingMessageProcessor to connect it to a ParserTask.
+ */
+public interface BatchMessageProcessor {
+	/**
+	 * Process a batch of elements. The elements are in document order and all
+	 * of them are complete (XMLEvent.END). The list is owned by the processor.
+	 * 
+	 * @param batch
+	 *            The elements that are sent by the reader
+	 * @throws ProcessorException
+	 *             If the processing cannot recover from error it throws this
+	 *             exception.
+	 */
+	public void process(List<ComplexDataType> batch) throws ProcessorException;
+}
@@ -0,0 +1,210 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the completed elements (XMLEvent.END) in batches and passes each
+ * batch to a BatchMessageProcessor. START events are ignored.
+ * 
+ * A batch is passed on when it holds the maximum number of elements, when the
+ * estimated size of its elements reaches the maximum number of bytes, or when
+ * its first element has waited for the maximum latency. The remaining elements
+ * are passed on by flush, which the ParserTask calls at the end of each
+ * document.
+ * 
+ * The size of the elements is estimated by a SizeEstimator that is given
+ * with the maximum number of bytes. There is no default: SizeEstimator.DEFAULT
+ * only covers the element itself, while the data of a record is typically
+ * held by its child elements, which are fields of the generated type.
+ * 
+ * Batches are passed on one at a time and in document order. With a maximum
+ * latency, a batch may be passed on by the timer thread; an error reported by
+ * the processor on that thread is rethrown by the next call to process or
+ * flush. Use {@link #close()} to stop the timer thread.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public class BatchingMessageProcessor implements FlushableMessageProcessor, AutoCloseable {
+	/** the application's processor. */
+	private final BatchMessageProcessor processor;
+	/** maximum number of elements in a batch. */
+	private final int maxRecords;
+	/** maximum estimated size of a batch (0 if there is no limit). */
+	private final long maxBytes;
+	/** maximum time in nanoseconds an element waits (0 if there is no limit). */
+	private final long maxLatency;
+	/** timer that passes on batches that waited too long (null if there is no limit). */
+	private final ScheduledExecutorService timer;
+
+	/** estimates the size of the elements (null if there is no limit). */
+	private final SizeEstimator estimator;
+	/** the batch that is being collected. */
+	private List<ComplexDataType> batch;
+	/** estimated size of the batch. */
+	private long bytes = 0;
+	/** pending timeout of the batch (if any). */
+	private ScheduledFuture<?> timeout = null;
+	/** error reported by the processor on the timer thread. */
+	private ProcessorException failure = null;
+
+	/**
+	 * Constructor.
+	 * @param processor the application's processor
+	 * @param maxRecords the maximum number of elements in a batch
+	 */
+	public BatchingMessageProcessor(BatchMessageProcessor processor, int maxRecords) {
+		this(processor, maxRecords, 0, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Constructor.
+	 * @param processor the application's processor
+	 * @param maxRecords the maximum number of elements in a batch
+	 * @param maxLatency the maximum time an element waits, 0 for no limit
+	 * @param unit the unit of maxLatency
+	 */
+	public BatchingMessageProcessor(BatchMessageProcessor processor, int maxRecords, long maxLatency, TimeUnit unit) {
+		this(processor, maxRecords, 0, null, maxLatency, unit);
+	}
+
+	/**
+	 * Constructor.
+	 * @param processor the application's processor
+	 * @param maxRecords the maximum number of elements in a batch
+	 * @param maxBytes the maximum estimated size of a batch, 0 for no limit
+	 * @param estimator estimates the size of the elements, required if there is a maximum number of bytes
+	 * @param maxLatency the maximum time an element waits, 0 for no limit
+	 * @param unit the unit of maxLatency
+	 */
+	public BatchingMessageProcessor(BatchMessageProcessor processor, int maxRecords, long maxBytes,
+			SizeEstimator estimator, long maxLatency, TimeUnit unit) {
+		assert (processor != null && maxRecords > 0 && maxBytes >= 0 && maxLatency >= 0);
+		if (maxBytes > 0 && estimator == null) {
+			throw new ParserConfigurationException("A maximum number of bytes requires a SizeEstimator for the records.");
+		}
+		this.processor = processor;
+		this.maxRecords = maxRecords;
+		this.maxBytes = maxBytes;
+		this.estimator = estimator;
+		this.maxLatency = unit.toNanos(maxLatency);
+		this.batch = new ArrayList<>(maxRecords);
+
+		if (maxLatency > 0) {
+			timer = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "xml2j-batch-timer");
+				t.setDaemon(true);
+				return t;
+			});
+		} else {
+			timer = null;
+		}
+	}
+
+	/** {@inheritDoc} */
+	public synchronized void process(XMLEvent evt, ComplexDataType data) throws ProcessorException {
+		rethrow();
+		if (evt != XMLEvent.END)
+			return;
+
+		batch.add(data);
+		if (maxBytes > 0) {
+			bytes += estimator.estimate(data);
+		}
+
+		if (batch.size() >= maxRecords || (maxBytes > 0 && bytes >= maxBytes)) {
+			emit();
+		} else if (timer != null && timeout == null) {
+			final List<ComplexDataType> pending = batch;
+			timeout = timer.schedule(() -> expire(pending), maxLatency, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Pass on the elements collected so far.
+	 * @throws ProcessorException if the processing of a batch failed
+	 */
+	public synchronized void flush() throws ProcessorException {
+		rethrow();
+		emit();
+	}
+
+	/**
+	 * Pass on the elements collected so far and stop the timer thread.
+	 */
+	public void close() {
+		try {
+			flush();
+		} finally {
+			if (timer != null) {
+				timer.shutdownNow();
+			}
+		}
+	}
+
+	private synchronized void expire(List<ComplexDataType> pending) {
+		// the batch may have been passed on in the meantime..
+		if (pending != batch)
+			return;
+		timeout = null;
+		try {
+			emit();
+		} catch (ProcessorException e) {
+			if (failure == null) {
+				failure = e;
+			}
+		} catch (RuntimeException e) {
+			if (failure == null) {
+				failure = new ProcessorException(e);
+			}
+		}
+	}
+
+	private void emit() {
+		if (timeout != null) {
+			timeout.cancel(false);
+			timeout = null;
+		}
+		if (batch.isEmpty())
+			return;
+
+		List<ComplexDataType> full = batch;
+		batch = new ArrayList<>(maxRecords);
+		bytes = 0;
+		processor.process(full);
+	}
+
+	private void rethrow() {
+		ProcessorException e = failure;
+		if (e != null) {
+			failure = null;
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Reads trees of elements written by the BinaryEncoder.
+ * 
+ * Elements are created by the allocators in the TypeRegistry; the allocator
+ * of a type is looked up once, when its name is read from the symbol table.
+ * The data that generated types hold in fields of their own is read by
+ * {@link ComplexDataType#readFields}.
+ * 
+ * @author Lolke B. Dijkstra
+ * @see BinaryEncoder
+ */
+public final class BinaryDecoder implements Closeable {
+	private final InputStream in;
+	private final TypeRegistry registry;
+	private byte[] buf = new byte[8192];
+	private int pos = 0;
+	private int limit = 0;
+	/** symbols in order of appearance. */
+	private String[] symbols = new String[64];
+	/** allocators of the symbols that name a type (resolved on first use). */
+	private TypeAllocator<?>[] allocators = new TypeAllocator<?>[64];
+	private int symbolCount = 0;
+
+	/**
+	 * Constructor, reads the header of the format.
+	 * @param in where to read
+	 * @param registry the allocators of the types in the stream
+	 * @throws IOException read error or the stream is not in the binary format
+	 */
+	public BinaryDecoder(InputStream in, TypeRegistry registry) throws IOException {
+		assert (in != null && registry != null);
+		this.in = in;
+		this.registry = registry;
+		require(5);
+		int magic = ((buf[0] & 0xff) << 24) | ((buf[1] & 0xff) << 16) | ((buf[2] & 0xff) << 8) | (buf[3] & 0xff);
+		if (magic != BinaryEncoder.MAGIC || buf[4] != BinaryEncoder.VERSION) {
+			throw new StreamCorruptedException("Not an xml2j binary stream (or unsupported version)");
+		}
+		pos = 5;
+	}
+
+	/**
+	 * @return true if there is more data, e.g. another record
+	 * @throws IOException read error
+	 */
+	public boolean hasMore() throws IOException {
+		return pos < limit || fill(1);
+	}
+
+	/**
+	 * Read an element and, through readFields, the elements it contains.
+	 * @param parent the parent of the element (or null)
+	 * @return the element (may be null)
+	 * @throws IOException read error or the type is not registered
+	 */
+	public ComplexDataType readElement(ComplexDataType parent) throws IOException {
+		int tag = readVarInt();
+		if (tag == BinaryEncoder.NULL) {
+			return null;
+		}
+		if (tag != BinaryEncoder.ELEMENT) {
+			throw new StreamCorruptedException("Unexpected tag: " + tag);
+		}
+		TypeAllocator<?> allocator = readAllocator();
+		String name = readSymbol();
+		ComplexDataType element = allocator.newInstance(name, parent);
+
+		for (int n = readVarInt(); n != 0; n--) {
+			String attr = readSymbol();
+			element.setAttr(attr, readString());
+		}
+		String content = readString();
+		if (content != null) {
+			element.setContent(content);
+		}
+		element.readFields(this);
+		return element;
+	}
+
+	/**
+	 * Read an element of a known type.
+	 * @param parent the parent of the element (or null)
+	 * @param type the type of the element
+	 * @return the element (may be null)
+	 * @throws IOException read error, the type is not registered or does not match
+	 */
+	public <T extends ComplexDataType> T readElement(ComplexDataType parent, Class<T> type) throws IOException {
+		ComplexDataType element = readElement(parent);
+		if (element != null && !type.isInstance(element)) {
+			throw new InvalidClassException(element.getClass().getName(), "expected " + type.getName());
+		}
+		return type.cast(element);
+	}
+
+	/**
+	 * Read a list of elements.
+	 * @param elements where to add the elements
+	 * @param parent the parent of the elements
+	 * @param type the type of the elements
+	 * @throws IOException read error, the type is not registered or does not match
+	 */
+	public <T extends ComplexDataType> void readElements(Collection<? super T> elements, ComplexDataType parent,
+			Class<T> type) throws IOException {
+		for (int n = readVarInt(); n != 0; n--) {
+			elements.add(readElement(parent, type));
+		}
+	}
+
+	/**
+	 * Read a list of strings.
+	 * @param strings where to add the strings
+	 * @throws IOException read error
+	 */
+	public void readStrings(Collection<String> strings) throws IOException {
+		for (int n = readVarInt(); n != 0; n--) {
+			strings.add(readString());
+		}
+	}
+
+	/**
+	 * Read a string.
+	 * @return the string (may be null)
+	 * @throws IOException read error
+	 */
+	public String readString() throws IOException {
+		int len = readVarInt() - 1;
+		if (len < 0) {
+			return null;
+		}
+		require(len);
+		String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+		pos += len;
+		return s;
+	}
+
+	/**
+	 * Read a non-negative int written as varint.
+	 * @return the value
+	 * @throws IOException read error
+	 */
+	public int readVarInt() throws IOException {
+		int v = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = readByte();
+			v |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return v;
+			}
+		}
+		throw new StreamCorruptedException("Malformed varint");
+	}
+
+	/**
+	 * Read a long written as zigzag varint.
+	 * @return the value
+	 * @throws IOException read error
+	 */
+	public long readVarLong() throws IOException {
+		long z = 0;
+		for (int shift = 0; shift < 70; shift += 7) {
+			int b = readByte();
+			z |= (long) (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return (z >>> 1) ^ -(z & 1);
+			}
+		}
+		throw new StreamCorruptedException("Malformed varint");
+	}
+
+	/**
+	 * Read a boolean.
+	 * @return the value
+	 * @throws IOException read error
+	 */
+	public boolean readBoolean() throws IOException {
+		return readByte() != 0;
+	}
+
+	/**
+	 * Close the stream.
+	 * @throws IOException close error
+	 */
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private TypeAllocator<?> readAllocator() throws IOException {
+		int i = readSymbolIndex();
+		TypeAllocator<?> allocator = allocators[i];
+		if (allocator == null) {
+			allocator = registry.get(symbols[i]);
+			if (allocator == null) {
+				throw new InvalidClassException(symbols[i], "no allocator registered");
+			}
+			allocators[i] = allocator;
+		}
+		return allocator;
+	}
+
+	private String readSymbol() throws IOException {
+		return symbols[readSymbolIndex()];
+	}
+
+	private int readSymbolIndex() throws IOException {
+		int ref = readVarInt();
+		if (ref != BinaryEncoder.NEW_SYMBOL) {
+			if (ref > symbolCount) {
+				throw new StreamCorruptedException("Unknown symbol: " + ref);
+			}
+			return ref - 1;
+		}
+		String symbol = readString();
+		if (symbol == null) {
+			throw new StreamCorruptedException("Missing symbol");
+		}
+		if (symbolCount == symbols.length) {
+			symbols = Arrays.copyOf(symbols, symbolCount * 2);
+			allocators = Arrays.copyOf(allocators, symbolCount * 2);
+		}
+		symbols[symbolCount] = symbol.intern();
+		return symbolCount++;
+	}
+
+	private int readByte() throws IOException {
+		if (pos == limit && !fill(1)) {
+			throw new EOFException();
+		}
+		return buf[pos++] & 0xff;
+	}
+
+	private void require(int n) throws IOException {
+		if (limit - pos < n && !fill(n)) {
+			throw new EOFException();
+		}
+	}
+
+	/**
+	 * Make sure n bytes are buffered.
+	 * @return false if the stream ends before that
+	 */
+	private boolean fill(int n) throws IOException {
+		if (pos > 0) {
+			System.arraycopy(buf, pos, buf, 0, limit - pos);
+			limit -= pos;
+			pos = 0;
+		}
+		if (n > buf.length) {
+			buf = Arrays.copyOf(buf, Math.max(n, buf.length * 2));
+		}
+		while (limit < n) {
+			int r = in.read(buf, limit, buf.length - limit);
+			if (r < 0) {
+				return false;
+			}
+			limit += r;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,291 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes trees of elements in a compact binary format.
+ * 
+ * Element names, attribute names and type names are written once; after that
+ * they are referred to by their index in a symbol table. The symbol table
+ * lives as long as the encoder, so a stream of records only carries each name
+ * once. Lengths and indices are written as varints and strings as UTF-8. The
+ * parent of an element is not written: the decoder restores it from the tree.
+ * 
+ * The data that generated types hold in fields of their own (child elements
+ * and simple elements) is written by {@link ComplexDataType#writeFields}.
+ * 
+ * @author Lolke B. Dijkstra
+ * @see BinaryDecoder
+ */
+public final class BinaryEncoder implements Flushable, Closeable {
+	/** identifies the format: "X2JB". */
+	static final int MAGIC = 0x58324a42;
+	/** version of the format. */
+	static final int VERSION = 1;
+	/** tag of a missing element. */
+	static final int NULL = 0;
+	/** tag of an element. */
+	static final int ELEMENT = 1;
+	/** reference to a symbol that is not in the table yet. */
+	static final int NEW_SYMBOL = 0;
+
+	private final OutputStream out;
+	private final byte[] buf = new byte[8192];
+	private int pos = 0;
+	/** index of each symbol written so far. */
+	private final Map<String, Integer> symbols = new HashMap<>();
+	/** indicates whether the encoder writes elements that are spilled by a MemoryBudget. */
+	boolean spilling = false;
+
+	/**
+	 * Constructor, writes the header of the format.
+	 * @param out where to write
+	 * @throws IOException write error
+	 */
+	public BinaryEncoder(OutputStream out) throws IOException {
+		assert (out != null);
+		this.out = out;
+		writeHeader();
+	}
+
+	/**
+	 * Start a new stream on the same output: the symbol table is cleared and
+	 * the header is written again.
+	 * @throws IOException write error
+	 */
+	void reset() throws IOException {
+		symbols.clear();
+		writeHeader();
+	}
+
+	private void writeHeader() throws IOException {
+		ensure(5);
+		buf[pos++] = (byte) (MAGIC >>> 24);
+		buf[pos++] = (byte) (MAGIC >>> 16);
+		buf[pos++] = (byte) (MAGIC >>> 8);
+		buf[pos++] = (byte) MAGIC;
+		buf[pos++] = (byte) VERSION;
+	}
+
+	/**
+	 * Write an element and, through writeFields, the elements it contains.
+	 * @param element the element (may be null)
+	 * @throws IOException write error
+	 */
+	public void writeElement(ComplexDataType element) throws IOException {
+		if (element == null) {
+			writeVarInt(NULL);
+			return;
+		}
+		writeVarInt(ELEMENT);
+		writeSymbol(element.getClass().getName());
+		writeSymbol(element.getXMLElementName());
+
+		Set<Map.Entry<String, String>> atts = element.attributeEntries();
+		writeVarInt(atts.size());
+		for (Map.Entry<String, String> att : atts) {
+			writeSymbol(att.getKey());
+			writeString(att.getValue());
+		}
+		writeString(element.getContentSequence());
+		element.writeFields(this);
+	}
+
+	/**
+	 * Write a list of elements.
+	 * @param elements the elements
+	 * @throws IOException write error
+	 */
+	public void writeElements(Collection<? extends ComplexDataType> elements) throws IOException {
+		if (spilling && elements instanceof SpillList) {
+			// the list is spilled with the element that holds it..
+			((SpillList<?>) elements).retire();
+		}
+		writeVarInt(elements.size());
+		for (ComplexDataType e : elements) {
+			writeElement(e);
+		}
+	}
+
+	/**
+	 * Write a list of strings (e.g. a StringList).
+	 * @param strings the strings
+	 * @throws IOException write error
+	 */
+	public void writeStrings(Collection<String> strings) throws IOException {
+		writeVarInt(strings.size());
+		for (String s : strings) {
+			writeString(s);
+		}
+	}
+
+	/**
+	 * Write a string as UTF-8.
+	 * @param s the string (may be null)
+	 * @throws IOException write error
+	 */
+	public void writeString(CharSequence s) throws IOException {
+		if (s == null) {
+			writeVarInt(0);
+			return;
+		}
+		int n = s.length();
+		writeVarInt(utf8Length(s, n) + 1);
+		for (int i = 0; i < n; i++) {
+			ensure(4);
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				buf[pos++] = (byte) c;
+			} else if (c < 0x800) {
+				buf[pos++] = (byte) (0xc0 | (c >> 6));
+				buf[pos++] = (byte) (0x80 | (c & 0x3f));
+			} else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+				int cp = Character.toCodePoint(c, s.charAt(++i));
+				buf[pos++] = (byte) (0xf0 | (cp >> 18));
+				buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+				buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+				buf[pos++] = (byte) (0x80 | (cp & 0x3f));
+			} else if (Character.isSurrogate(c)) {
+				// unpaired surrogate..
+				buf[pos++] = '?';
+			} else {
+				buf[pos++] = (byte) (0xe0 | (c >> 12));
+				buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				buf[pos++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+	}
+
+	/**
+	 * Write a non-negative int as varint.
+	 * @param v the value
+	 * @throws IOException write error
+	 */
+	public void writeVarInt(int v) throws IOException {
+		ensure(5);
+		while ((v & ~0x7f) != 0) {
+			buf[pos++] = (byte) ((v & 0x7f) | 0x80);
+			v >>>= 7;
+		}
+		buf[pos++] = (byte) v;
+	}
+
+	/**
+	 * Write a long as zigzag varint.
+	 * @param v the value
+	 * @throws IOException write error
+	 */
+	public void writeVarLong(long v) throws IOException {
+		ensure(10);
+		long z = (v << 1) ^ (v >> 63);
+		while ((z & ~0x7fL) != 0) {
+			buf[pos++] = (byte) ((z & 0x7f) | 0x80);
+			z >>>= 7;
+		}
+		buf[pos++] = (byte) z;
+	}
+
+	/**
+	 * Write a boolean.
+	 * @param v the value
+	 * @throws IOException write error
+	 */
+	public void writeBoolean(boolean v) throws IOException {
+		ensure(1);
+		buf[pos++] = (byte) (v ? 1 : 0);
+	}
+
+	/**
+	 * Write the buffered bytes and flush the stream.
+	 * @throws IOException write error
+	 */
+	public void flush() throws IOException {
+		drain();
+		out.flush();
+	}
+
+	/**
+	 * Flush and close the stream.
+	 * @throws IOException write error
+	 */
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			out.close();
+		}
+	}
+
+	private void writeSymbol(String symbol) throws IOException {
+		Integer index = symbols.get(symbol);
+		if (index != null) {
+			writeVarInt(index + 1);
+		} else {
+			writeVarInt(NEW_SYMBOL);
+			writeString(symbol);
+			symbols.put(symbol, symbols.size());
+		}
+	}
+
+	private static int utf8Length(CharSequence s, int n) {
+		int len = 0;
+		for (int i = 0; i < n; i++) {
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				len++;
+			} else if (c < 0x800) {
+				len += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+				len += 4;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				len++;
+			} else {
+				len += 3;
+			}
+		}
+		return len;
+	}
+
+	private void ensure(int n) throws IOException {
+		if (pos > buf.length - n) {
+			drain();
+		}
+	}
+
+	private void drain() throws IOException {
+		if (pos > 0) {
+			out.write(buf, 0, pos);
+			pos = 0;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import com.xml2j.xml.core.XMLFragmentHandler.HandlerProxy;
+
+
+/**
+ * Table of the child handler proxies registered with a handler.
+ *
+ * The table is an open addressed hash table of interned element names. The
+ * names delivered by the parser are usually interned as well, in which case a
+ * lookup is resolved by comparing the cached hash code and the reference.
+ * The proxies are also kept in registration order, so they can be visited
+ * without iterating over a map.
+ *
+ * @author Lolke B. Dijkstra
+ */
+final class ChildTable {
+	/** initial number of slots, must be a power of 2. */
+	private static final int INITIAL_SLOTS = 8;
+
+	/** interned element names by slot. */
+	private String[] symbols = new String[INITIAL_SLOTS];
+	/** hash codes of element names by slot. */
+	private int[] hashes = new int[INITIAL_SLOTS];
+	/** index into proxies by slot. */
+	private int[] index = new int[INITIAL_SLOTS];
+	/** proxies in registration order. */
+	private HandlerProxy<?>[] proxies = new HandlerProxy<?>[INITIAL_SLOTS];
+	/** number of proxies. */
+	private int size = 0;
+
+	/**
+	 * Register a proxy. A proxy registered earlier for the same element is replaced.
+	 * @param proxy the proxy of the child handler
+	 */
+	void put(HandlerProxy<?> proxy) {
+		String name = proxy.elementName.intern();
+		int slot = find(name, name.hashCode());
+		if (symbols[slot] != null) {
+			proxies[index[slot]] = proxy;
+			return;
+		}
+
+		if (size == proxies.length) {
+			HandlerProxy<?>[] grown = new HandlerProxy<?>[size * 2];
+			System.arraycopy(proxies, 0, grown, 0, size);
+			proxies = grown;
+		}
+		proxies[size] = proxy;
+		insert(name, size++);
+		if (size * 2 > symbols.length) {
+			rehash(symbols.length * 2);
+		}
+	}
+
+	/**
+	 * Find the proxy for an element.
+	 * @param name the local name of the element
+	 * @return the proxy or null if no proxy was registered
+	 */
+	HandlerProxy<?> get(String name) {
+		int h = name.hashCode();
+		int mask = symbols.length - 1;
+		for (int slot = h & mask;; slot = (slot + 1) & mask) {
+			String s = symbols[slot];
+			if (s == null)
+				return null;
+			if (s == name || (hashes[slot] == h && s.equals(name)))
+				return proxies[index[slot]];
+		}
+	}
+
+	/**
+	 * @return the number of proxies
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @param i index in registration order
+	 * @return the proxy
+	 */
+	HandlerProxy<?> get(int i) {
+		return proxies[i];
+	}
+
+	private int find(String name, int h) {
+		int mask = symbols.length - 1;
+		int slot = h & mask;
+		while (symbols[slot] != null && !(hashes[slot] == h && symbols[slot].equals(name))) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void insert(String name, int i) {
+		int h = name.hashCode();
+		int slot = find(name, h);
+		symbols[slot] = name;
+		hashes[slot] = h;
+		index[slot] = i;
+	}
+
+	private void rehash(int slots) {
+		symbols = new String[slots];
+		hashes = new int[slots];
+		index = new int[slots];
+		for (int i = 0; i != size; i++) {
+			insert(proxies[i].elementName.intern(), i);
+		}
+	}
+}
@@ -22,11 +22,20 @@ SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 
 Project root: https://sourceforge.net/projects/xml2j/
 ********************************************************************************/
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.HashMap;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
+import com.xml2j.util.CharSlice;
 import com.xml2j.util.Compare;
+import com.xml2j.util.ValueParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,12 +56,16 @@ public abstract class ComplexDataType implements DataType, Serializable {
 	
 	/** name of the element. */
 	private String xmlElementName = null;
-	/** list of attributes of element. */
-	private final Map<String, String> atts = new HashMap<>();
+	/** list of attributes of element (null as long as there are none). */
+	private AttributeMap atts = null;
 	/** content of element. */
 	private String content = null;
+	/** content of element that was not converted to a String yet. */
+	private transient CharSequence pendingContent = null;
 	/** parent data. */
 	private ComplexDataType parent = null;
+	/** the allocator that recycles this instance (if any). */
+	private transient RecyclingTypeAllocator<?> recycler = null;
 	
 	/**
 	 * {@inheritDoc}
@@ -84,14 +97,15 @@ public abstract class ComplexDataType implements DataType, Serializable {
 			return false;
 		}
 
+		String content = getContent();
 		if (content != null
-				&& !content.equals(((ComplexDataType) that).content)) {
+				&& !content.equals(((ComplexDataType) that).getContent())) {
 			if (logger.isTraceEnabled())
-				logger.trace("this.content {} is not equal that.content {}", this.content, ((ComplexDataType) that).content);
+				logger.trace("this.content {} is not equal that.content {}", content, ((ComplexDataType) that).getContent());
 			return false;
 		}
 
-		if (!atts.equals(((ComplexDataType) that).atts)) {
+		if (!attributes().equals(((ComplexDataType) that).attributes())) {
 			if (logger.isTraceEnabled())
 				logger.trace("this.atts {} is not equal that.atts {}", this.atts, ((ComplexDataType) that).atts);
 			return false;
@@ -128,8 +142,25 @@ public abstract class ComplexDataType implements DataType, Serializable {
 	 * @return map containing attributes
 	 */
 	public final Map<String, String> getAttributes() {
+		if (atts == null) {
+			atts = new AttributeMap(AttributeMap.Layout.of(getClass()));
+		}
 		return atts;
 	}
+
+	/**
+	 * @return the attributes or an empty map if there are none (without allocating a map)
+	 */
+	private Map<String, String> attributes() {
+		return atts != null ? atts : Collections.<String, String>emptyMap();
+	}
+
+	/**
+	 * @return the attributes, without allocating a map if there are none
+	 */
+	Set<Map.Entry<String, String>> attributeEntries() {
+		return attributes().entrySet();
+	}
 	
 	/**
 	 * Add an attribute value for this type.
@@ -141,7 +172,7 @@ public abstract class ComplexDataType implements DataType, Serializable {
 		if( logger.isTraceEnabled())
 			logger.trace("setAttr({},{})", attrName, data);
 
-		atts.put(attrName, data);
+		getAttributes().put(attrName, data);
 	}
 	
 	/**
@@ -151,10 +182,91 @@ public abstract class ComplexDataType implements DataType, Serializable {
 	 * @return it's value
 	 */
 	public String getAttr(String attrName) {
-		return atts.get(attrName);
+		return atts != null ? atts.get(attrName) : null;
 	}
 	
 
+	/**
+	 * Parse an attribute as xs:int.
+	 * @param attrName the name of the attribute
+	 * @param defaultValue the value if the attribute is not present
+	 * @return the value
+	 * @throws NumberFormatException the attribute is not an int
+	 */
+	public int getIntAttr(String attrName, int defaultValue) {
+		String value = getAttr(attrName);
+		return value != null ? ValueParser.parseInt(value) : defaultValue;
+	}
+
+	/**
+	 * Parse an attribute as xs:long.
+	 * @param attrName the name of the attribute
+	 * @param defaultValue the value if the attribute is not present
+	 * @return the value
+	 * @throws NumberFormatException the attribute is not a long
+	 */
+	public long getLongAttr(String attrName, long defaultValue) {
+		String value = getAttr(attrName);
+		return value != null ? ValueParser.parseLong(value) : defaultValue;
+	}
+
+	/**
+	 * Parse an attribute as xs:double.
+	 * @param attrName the name of the attribute
+	 * @param defaultValue the value if the attribute is not present
+	 * @return the value
+	 * @throws NumberFormatException the attribute is not a double
+	 */
+	public double getDoubleAttr(String attrName, double defaultValue) {
+		String value = getAttr(attrName);
+		return value != null ? ValueParser.parseDouble(value) : defaultValue;
+	}
+
+	/**
+	 * Parse an attribute as xs:boolean.
+	 * @param attrName the name of the attribute
+	 * @param defaultValue the value if the attribute is not present
+	 * @return the value
+	 * @throws IllegalArgumentException the attribute is not a boolean
+	 */
+	public boolean getBooleanAttr(String attrName, boolean defaultValue) {
+		String value = getAttr(attrName);
+		return value != null ? ValueParser.parseBoolean(value) : defaultValue;
+	}
+
+	/**
+	 * Parse an attribute as xs:decimal.
+	 * @param attrName the name of the attribute
+	 * @return the value or null if the attribute is not present
+	 * @throws NumberFormatException the attribute is not a decimal
+	 */
+	public BigDecimal getDecimalAttr(String attrName) {
+		String value = getAttr(attrName);
+		return value != null ? ValueParser.parseDecimal(value) : null;
+	}
+
+	/**
+	 * Parse an attribute as xs:date.
+	 * @param attrName the name of the attribute
+	 * @return the value or null if the attribute is not present
+	 * @throws DateTimeParseException the attribute is not a date
+	 */
+	public LocalDate getDateAttr(String attrName) {
+		String value = getAttr(attrName);
+		return value != null ? ValueParser.parseDate(value) : null;
+	}
+
+	/**
+	 * Parse an attribute as xs:dateTime.
+	 * @param attrName the name of the attribute
+	 * @return the value (in UTC if it has no timezone) or null if the attribute is not present
+	 * @throws DateTimeParseException the attribute is not a dateTime
+	 */
+	public OffsetDateTime getDateTimeAttr(String attrName) {
+		String value = getAttr(attrName);
+		return value != null ? ValueParser.parseDateTime(value) : null;
+	}
+
 	/**
 	 * Print this element to output.
 	 * @param out where to print
@@ -184,9 +296,16 @@ public abstract class ComplexDataType implements DataType, Serializable {
 	 * @param out where to print
 	 */
 	protected void printStart(Printer out) {
-		out.print(open_b + getXMLElementName());
-		for( Map.Entry<String, String> entry : atts.entrySet() ) {
-			out.print(att_b + entry.getKey() + att_s + entry.getValue() + att_e);	
+		out.print(open_b);
+		out.print(getXMLElementName());
+		for( Map.Entry<String, String> entry : attributes().entrySet() ) {
+			out.print(att_b);
+			out.print(entry.getKey());
+			out.print(att_s);
+			if (entry.getValue() != null) {
+				out.printAttributeValue(entry.getValue());
+			}
+			out.print(att_e);
 		}
 		out.print(open_e);
 	}
@@ -196,7 +315,9 @@ public abstract class ComplexDataType implements DataType, Serializable {
 	 * @param out where to print
 	 */
 	protected void printStop(Printer out) {
-		out.print(close_b + getXMLElementName() + close_e);
+		out.print(close_b);
+		out.print(getXMLElementName());
+		out.print(close_e);
 	}
 
 	/**
@@ -204,8 +325,9 @@ public abstract class ComplexDataType implements DataType, Serializable {
 	 * @param out where to print
 	 */
 	protected void printContents(Printer out) {
-		if (content != null && !content.equals("")) {
-			out.print(content);
+		CharSequence content = getContentSequence();
+		if (content != null && content.length() != 0) {
+			out.printText(content);
 		}
 	}	
 	
@@ -224,19 +346,202 @@ public abstract class ComplexDataType implements DataType, Serializable {
 	 */
 	public void setContent(String content) {
 		this.content = content.trim();
+		this.pendingContent = null;
+	}
+
+	/**
+	 * Set the content without creating a String. The String is created when
+	 * getContent is called. The sequence must not be modified afterwards.
+	 * 
+	 * @param content the content to set, leading and trailing whitespace is ignored
+	 */
+	public void setContent(CharSequence content) {
+		if (content instanceof CharSlice) {
+			content = ((CharSlice) content).trim();
+		} else if (!(content instanceof String)) {
+			content = content.toString();
+		}
+		if (content instanceof String) {
+			setContent((String) content);
+		} else {
+			this.content = null;
+			this.pendingContent = content;
+		}
 	}
 
 	/**
 	 * @return the content
 	 */
 	public String getContent() {
+		if (pendingContent != null) {
+			content = pendingContent.toString();
+			pendingContent = null;
+		}
 		return content;
 	}
-		
+
+	/**
+	 * Get the content without creating a String.
+	 * @return the content
+	 */
+	public CharSequence getContentSequence() {
+		CharSequence pending = pendingContent;
+		return pending != null ? pending : content;
+	}
+
+	/**
+	 * Parse the content as xs:int, without creating a String.
+	 * @param defaultValue the value if there is no content
+	 * @return the value
+	 * @throws NumberFormatException the content is not an int
+	 */
+	public int getIntContent(int defaultValue) {
+		CharSequence content = getContentSequence();
+		return content != null ? ValueParser.parseInt(content) : defaultValue;
+	}
+
+	/**
+	 * Parse the content as xs:long, without creating a String.
+	 * @param defaultValue the value if there is no content
+	 * @return the value
+	 * @throws NumberFormatException the content is not a long
+	 */
+	public long getLongContent(long defaultValue) {
+		CharSequence content = getContentSequence();
+		return content != null ? ValueParser.parseLong(content) : defaultValue;
+	}
+
+	/**
+	 * Parse the content as xs:double, without creating a String.
+	 * @param defaultValue the value if there is no content
+	 * @return the value
+	 * @throws NumberFormatException the content is not a double
+	 */
+	public double getDoubleContent(double defaultValue) {
+		CharSequence content = getContentSequence();
+		return content != null ? ValueParser.parseDouble(content) : defaultValue;
+	}
+
+	/**
+	 * Parse the content as xs:boolean, without creating a String.
+	 * @param defaultValue the value if there is no content
+	 * @return the value
+	 * @throws IllegalArgumentException the content is not a boolean
+	 */
+	public boolean getBooleanContent(boolean defaultValue) {
+		CharSequence content = getContentSequence();
+		return content != null ? ValueParser.parseBoolean(content) : defaultValue;
+	}
+
+	/**
+	 * Parse the content as xs:decimal, without creating a String.
+	 * @return the value or null if there is no content
+	 * @throws NumberFormatException the content is not a decimal
+	 */
+	public BigDecimal getDecimalContent() {
+		CharSequence content = getContentSequence();
+		return content != null ? ValueParser.parseDecimal(content) : null;
+	}
+
+	/**
+	 * Parse the content as xs:date, without creating a String.
+	 * @return the value or null if there is no content
+	 * @throws DateTimeParseException the content is not a date
+	 */
+	public LocalDate getDateContent() {
+		CharSequence content = getContentSequence();
+		return content != null ? ValueParser.parseDate(content) : null;
+	}
+
+	/**
+	 * Parse the content as xs:dateTime, without creating a String.
+	 * @return the value (in UTC if it has no timezone) or null if there is no content
+	 * @throws DateTimeParseException the content is not a dateTime
+	 */
+	public OffsetDateTime getDateTimeContent() {
+		CharSequence content = getContentSequence();
+		return content != null ? ValueParser.parseDateTime(content) : null;
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		getContent();
+		out.defaultWriteObject();
+	}
+
+	/**
+	 * Write the data held by derived classes (child elements, simple elements)
+	 * for the BinaryEncoder. The name, attributes and content are written by
+	 * the encoder. Derived classes override this method and readFields, in the
+	 * same way as printElements.
+	 * @param out where to write
+	 * @throws IOException write error
+	 */
+	protected void writeFields(BinaryEncoder out) throws IOException {
+	}
+
+	/**
+	 * Read the data written by writeFields.
+	 * @param in where to read
+	 * @throws IOException read error
+	 */
+	protected void readFields(BinaryDecoder in) throws IOException {
+	}
+	
 	/**
 	 * @return the parent of this element
 	 */
 	public ComplexDataType getParent() {
 		return parent;
 	}
+
+	/**
+	 * Release this element after processing, so it can be reused for a next element.
+	 * This only has effect for elements that are allocated by a recycling allocator,
+	 * which is the case for paths configured with '@detach' and '@recycle'.
+	 * The element must not be used after it is released.
+	 */
+	public void release() {
+		RecyclingTypeAllocator<?> r = recycler;
+		if (r != null) {
+			recycler = null;
+			r.recycle(this);
+		}
+	}
+
+	/**
+	 * Finds out whether the element can be reused for a next element. Only
+	 * types that clear all their data in clear() can be recycled, so the
+	 * default is false: a path configured with '@recycle' fails if its type
+	 * does not override this method.
+	 * 
+	 * @return true if clear() resets all data of the element
+	 */
+	protected boolean isRecyclable() {
+		return false;
+	}
+
+	/**
+	 * Clear the element before it is reused. Derived classes that hold
+	 * additional data override this method and call super.clear(), and
+	 * override isRecyclable to return true.
+	 */
+	protected void clear() {
+		if (atts != null) {
+			atts.clear();
+		}
+		content = null;
+		pendingContent = null;
+	}
+
+	/**
+	 * Prepare a cleared element for reuse.
+	 * @param tagName the element name used for the element
+	 * @param parent the parent of the element (or null)
+	 * @param recycler the allocator the element is released to
+	 */
+	void reuse(String tagName, ComplexDataType parent, RecyclingTypeAllocator<?> recycler) {
+		this.xmlElementName = tagName;
+		this.parent = parent;
+		this.recycler = recycler;
+	}
 }
@@ -35,4 +35,14 @@ public interface ConfigurationContants {
 	static final String PROCESS = "/@process";	
 	/** DETACH is used in the properties file. Contains "/@detach" */
 	static final String DETACH = "/@detach";	
+	/** DISPATCH selects how events are routed to the handlers. Contains "xml2j.dispatch" */
+	static final String DISPATCH = "xml2j.dispatch";
+	/** DISPATCH_TABLE routes the events through the XMLDispatcher. Contains "table" */
+	static final String DISPATCH_TABLE = "table";
+	/** CONTENT selects how element content is passed to the data. Contains "xml2j.content" */
+	static final String CONTENT = "xml2j.content";
+	/** CONTENT_LAZY passes content as CharSequence, a String is created on demand. Contains "lazy" */
+	static final String CONTENT_LAZY = "lazy";
+	/** BUDGET limits the memory used by linked elements, in bytes (suffix k, m or g). Contains "xml2j.budget" */
+	static final String BUDGET = "xml2j.budget";
 }
@@ -0,0 +1,139 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.CharArrayWriter;
+import java.util.Arrays;
+
+import com.xml2j.util.CharSlice;
+import com.xml2j.util.StringCache;
+
+/**
+ * Buffer for the content of an element.
+ * 
+ * Besides the CharArrayWriter interface the buffer can lend out its characters
+ * as a CharSlice, so large content can be passed on without copying. After that,
+ * the buffer no longer writes to the lent array: the next reset starts a new one.
+ * Short content is copied into an array of its own size instead, so a slice
+ * never pins a large array for a few characters.
+ * The buffer is also a CharSequence, so the content can be read in place, e.g.
+ * by the ValueParser.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+final class ContentBuffer extends CharArrayWriter implements CharSequence {
+	/** capacity of a new array that replaces a lent array (as CharArrayWriter). */
+	static final int INITIAL_CAPACITY = 32;
+	/** minimum length of content that is lent rather than copied. */
+	static final int MIN_LEND = 1024;
+
+	/** indicates whether the current array was lent out. */
+	private boolean lent = false;
+
+	/**
+	 * Write characters to the buffer. Unlike the CharArrayWriter the buffer is not
+	 * synchronized, as it is only written by the parser thread.
+	 */
+	@Override
+	public void write(char[] c, int off, int len) {
+		int n = count + len;
+		if (n > buf.length) {
+			char[] grown = new char[Math.max(buf.length << 1, n)];
+			System.arraycopy(buf, 0, grown, 0, count);
+			buf = grown;
+		}
+		System.arraycopy(c, off, buf, count, len);
+		count = n;
+	}
+
+	@Override
+	public void reset() {
+		if (lent) {
+			buf = new char[INITIAL_CAPACITY];
+			lent = false;
+		}
+		count = 0;
+	}
+
+	public int length() {
+		return count;
+	}
+
+	public char charAt(int index) {
+		if (index < 0 || index >= count)
+			throw new IndexOutOfBoundsException("index: " + index);
+		return buf[index];
+	}
+
+	public CharSequence subSequence(int start, int end) {
+		if (start < 0 || end > count || start > end)
+			throw new IndexOutOfBoundsException("start: " + start + ", end: " + end);
+		return new String(buf, start, end - start);
+	}
+
+	/**
+	 * Get the content without leading and trailing whitespace.
+	 * @return a view of the content or the empty String if the content is whitespace only
+	 */
+	CharSequence trimmed() {
+		int b = 0;
+		int e = count;
+		while (b < e && buf[b] <= ' ')
+			b++;
+		while (e > b && buf[e - 1] <= ' ')
+			e--;
+		if (b == e) {
+			return "";
+		}
+		int len = e - b;
+		if (len < MIN_LEND || len < buf.length >>> 1) {
+			return new CharSlice(Arrays.copyOfRange(buf, b, e), 0, len);
+		}
+		lent = true;
+		return new CharSlice(buf, b, len);
+	}
+
+	/**
+	 * Get the content from a cache.
+	 * @param cache the cache
+	 * @return the content
+	 */
+	String toString(StringCache cache) {
+		return cache.get(buf, 0, count);
+	}
+
+	/**
+	 * Get the content without leading and trailing whitespace from a cache.
+	 * @param cache the cache
+	 * @return the trimmed content
+	 */
+	String trimmed(StringCache cache) {
+		int b = 0;
+		int e = count;
+		while (b < e && buf[b] <= ' ')
+			b++;
+		while (e > b && buf[e - 1] <= ' ')
+			e--;
+		return cache.get(buf, b, e - b);
+	}
+}
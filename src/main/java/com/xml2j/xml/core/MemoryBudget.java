@@ -0,0 +1,388 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Limits the memory used by the elements that are linked into the tree of a
+ * document, so a document of unexpected shape cannot exhaust the heap.
+ * 
+ * When an element is linked to its parent, its estimated size is added to the
+ * budget. An element that is not linked ('@detach') returns the size of its
+ * children to the budget. When the budget is exceeded the policy applies:
+ * <ul>
+ * <li>FAIL: the parse is aborted with a ProcessorException.</li>
+ * <li>SPILL: the oldest elements in SpillLists are written to a temporary
+ * file until the estimate is below SPILL_TARGET of the limit; they are read
+ * back when they are accessed. If that is not enough the parse is aborted as
+ * with FAIL. Spilling requires that the types implement writeFields and
+ * readFields, and are registered in the TypeRegistry.</li>
+ * </ul>
+ * 
+ * The budget is reset when the task starts a new document, or when the task
+ * is reset or discarded. Spilled elements can be read until then. A budget belongs to a single ParserTask; it can be
+ * set on the task or configured with the property xml2j.budget (FAIL policy).
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public final class MemoryBudget implements ConfigurationContants, Closeable {
+	/** What to do when the budget is exceeded. */
+	public enum Policy {
+		/** abort the parse. */
+		FAIL,
+		/** write elements to a temporary file. */
+		SPILL
+	}
+
+	/** part of the limit that spilling aims for. */
+	static final double SPILL_TARGET = 0.75;
+
+	/** the budget of the element that is being linked (SPILL only). */
+	private static final ThreadLocal<MemoryBudget> linking = new ThreadLocal<>();
+
+	private final long limit;
+	private final Policy policy;
+	/** allocators of the spilled types (SPILL only). */
+	private final TypeRegistry registry;
+	/** directory for the temporary file (null for the default). */
+	private final File directory;
+	private SizeEstimator estimator = SizeEstimator.DEFAULT;
+
+	/** estimated size of the linked elements. */
+	private long used = 0;
+	/** highest estimate since the budget was created. */
+	private long peak = 0;
+	/** number of elements spilled since the budget was created. */
+	private long spilled = 0;
+	/** estimated size of the element that is being linked and its children. */
+	private long linked = 0;
+	/** the lists that can be spilled, oldest first. */
+	private final ArrayList<SpillList<?>> lists = new ArrayList<>();
+	/** the number of lists at each mark that was not linked or released yet. */
+	private int[] marks = new int[16];
+	/** the bytes spilled since each mark from the lists registered before it. */
+	private long[] credits = new long[16];
+	private int depth = 0;
+	/** where elements are spilled (created on demand). */
+	private SpillStore store = null;
+
+	/**
+	 * Constructor, for a budget that aborts the parse when it is exceeded.
+	 * @param limit the maximum estimated size of the linked elements in bytes
+	 */
+	public MemoryBudget(long limit) {
+		this(limit, Policy.FAIL, null, null);
+	}
+
+	/**
+	 * Constructor, for a budget that spills elements when it is exceeded.
+	 * @param limit the maximum estimated size of the linked elements in bytes
+	 * @param registry the allocators of the types that are spilled
+	 * @param directory the directory for the temporary file, or null for the default
+	 */
+	public MemoryBudget(long limit, TypeRegistry registry, File directory) {
+		this(limit, Policy.SPILL, registry, directory);
+		assert (registry != null);
+	}
+
+	private MemoryBudget(long limit, Policy policy, TypeRegistry registry, File directory) {
+		assert (limit > 0);
+		this.limit = limit;
+		this.policy = policy;
+		this.registry = registry;
+		this.directory = directory;
+	}
+
+	/**
+	 * Get the budget that is configured with the property xml2j.budget.
+	 * @param configuration the loaded configuration
+	 * @return the budget or null if none is configured
+	 */
+	public static MemoryBudget forConfiguration(ParserConfiguration configuration) {
+		String value = configuration.getProperty(BUDGET);
+		if (value == null || value.trim().isEmpty()) {
+			return null;
+		}
+		String v = value.trim().toLowerCase();
+		long unit = 1;
+		switch (v.charAt(v.length() - 1)) {
+		case 'k':
+			unit = 1L << 10;
+			break;
+		case 'm':
+			unit = 1L << 20;
+			break;
+		case 'g':
+			unit = 1L << 30;
+			break;
+		default:
+			break;
+		}
+		try {
+			long limit = Long.parseLong(unit == 1 ? v : v.substring(0, v.length() - 1).trim()) * unit;
+			if (limit > 0) {
+				return new MemoryBudget(limit);
+			}
+		} catch (NumberFormatException e) {
+			// reported below..
+		}
+		throw new ParserConfigurationException("Invalid " + BUDGET + ": " + value);
+	}
+
+	/**
+	 * Replace the estimator of the size of the elements.
+	 * @param estimator the estimator
+	 */
+	public void setSizeEstimator(SizeEstimator estimator) {
+		assert (estimator != null);
+		this.estimator = estimator;
+	}
+
+	/**
+	 * @return the maximum estimated size of the linked elements
+	 */
+	public long getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return what happens when the budget is exceeded
+	 */
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * @return the estimated size of the linked elements of the current document
+	 */
+	public long getUsed() {
+		return used;
+	}
+
+	/**
+	 * @return the highest estimate since the budget was created
+	 */
+	public long getPeak() {
+		return peak;
+	}
+
+	/**
+	 * @return the number of elements spilled since the budget was created
+	 */
+	public long getSpilledCount() {
+		return spilled;
+	}
+
+	/**
+	 * Start a new document: the estimate is cleared and the elements spilled
+	 * for the previous document are deleted.
+	 */
+	void reset() {
+		used = 0;
+		lists.clear();
+		depth = 0;
+		if (store != null) {
+			store.close();
+			store = null;
+		}
+	}
+
+	/**
+	 * Delete the elements spilled for the last document, when the task that
+	 * owns the budget is reset or discarded. The budget can still be used for
+	 * a new document.
+	 */
+	@Override
+	public void close() {
+		reset();
+	}
+
+	/**
+	 * Called when a handler is entered. Each mark is followed by a call to
+	 * link or release, in the order of the elements in the document.
+	 * @return the mark to pass to link or release
+	 */
+	long mark() {
+		if (depth == marks.length) {
+			marks = Arrays.copyOf(marks, depth * 2);
+			credits = Arrays.copyOf(credits, depth * 2);
+		}
+		marks[depth] = lists.size();
+		credits[depth++] = 0;
+		return used;
+	}
+
+	/**
+	 * Called for an element that is not linked: its children are dropped with it.
+	 * @param mark the mark of the element
+	 */
+	void release(long mark) {
+		long start = mark - unmark();
+		if (used > start) {
+			used = start;
+		}
+	}
+
+	/**
+	 * Drop the lists registered since the last mark. These are the lists of the
+	 * children of the element: once it is linked they are only spilled with the
+	 * element, whose size includes the children that were not spilled yet. So
+	 * the children are never credited twice.
+	 * @return the bytes spilled since the mark that were charged before it
+	 */
+	private long unmark() {
+		if (depth == 0) {
+			return 0;
+		}
+		int n = marks[--depth];
+		if (n < lists.size()) {
+			lists.subList(n, lists.size()).clear();
+		}
+		return credits[depth];
+	}
+
+	/**
+	 * Link an element to its parent and add its size to the budget.
+	 * @param setter links the element
+	 * @param data the element
+	 * @param mark the mark of the element
+	 * @param path the path of the element
+	 * @throws ProcessorException if the budget is exceeded (and spilling does not help)
+	 */
+	void link(DataSetter setter, ComplexDataType data, long mark, String path) throws ProcessorException {
+		long start = mark - unmark();
+		long size = estimator.estimate(data);
+		linked = Math.max(used - start, 0) + size;
+		used += size;
+		if (used > peak) {
+			peak = used;
+		}
+
+		if (policy == Policy.FAIL) {
+			if (used > limit) {
+				exceeded(path);
+			}
+			setter.set(data);
+			return;
+		}
+
+		linking.set(this);
+		try {
+			setter.set(data);
+		} finally {
+			linking.remove();
+		}
+		if (used > limit) {
+			spill();
+			if (used > limit) {
+				exceeded(path);
+			}
+		}
+	}
+
+	/**
+	 * @return the budget of the element that is being linked on this thread (SPILL only)
+	 */
+	static MemoryBudget linking() {
+		return linking.get();
+	}
+
+	/**
+	 * @return the estimated size of the element that is being linked and its children
+	 */
+	long linkedSize() {
+		return linked;
+	}
+
+	/**
+	 * Add a list that receives linked elements.
+	 * @param list the list
+	 */
+	void register(SpillList<?> list) {
+		lists.add(list);
+	}
+
+	/**
+	 * Give the size of an element back when it is removed from a list. The
+	 * elements of a list that was dropped are part of the size of the element
+	 * that holds the list, so they are not credited.
+	 * @param list the list
+	 * @param size the size charged for the element
+	 */
+	void credit(SpillList<?> list, long size) {
+		int i = lists.indexOf(list);
+		if (i < 0) {
+			return;
+		}
+		used -= size;
+		for (int k = depth - 1; k >= 0 && marks[k] > i; k--) {
+			credits[k] += size;
+		}
+	}
+
+	/**
+	 * Spill the oldest elements until the estimate is below SPILL_TARGET of the limit.
+	 */
+	private void spill() throws ProcessorException {
+		long target = (long) (limit * SPILL_TARGET);
+		try {
+			if (store == null) {
+				store = new SpillStore(directory, registry);
+			}
+			for (int i = 0; i < lists.size() && used > target;) {
+				SpillList<?> list = lists.get(i);
+				if (list.isRetired()) {
+					lists.remove(i);
+					for (int k = 0; k != depth; k++) {
+						if (marks[k] > i) {
+							marks[k]--;
+						}
+					}
+					continue;
+				}
+				int count = list.getSpilledCount();
+				long freed = list.spill(used - target, store);
+				used -= freed;
+				spilled += list.getSpilledCount() - count;
+				// the marks that were set after the elements were charged..
+				for (int k = depth - 1; k >= 0 && marks[k] > i; k--) {
+					credits[k] += freed;
+				}
+				i++;
+			}
+		} catch (IOException e) {
+			throw new ProcessorException(e);
+		}
+	}
+
+	private void exceeded(String path) throws ProcessorException {
+		throw new ProcessorException("Memory budget of " + limit + " bytes exceeded at " + path
+				+ ": the linked elements are estimated at " + used
+				+ " bytes. Configure '@detach' for repeating elements or raise the budget.");
+	}
+}
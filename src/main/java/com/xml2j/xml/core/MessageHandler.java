@@ -57,6 +57,18 @@ public interface MessageHandler extends ConfigurationContants {
 	 */
 	public void process() throws IOException, SAXException;
 
+	/**
+	 * Connects the handlers to the XMLReader, so they receive the events of a
+	 * new document. This is done by process, but is also needed when the events
+	 * are delivered to the XMLReader's ContentHandler by other means.
+	 * 
+	 * The default implementation throws an UnsupportedOperationException, so
+	 * existing implementations keep compiling but cannot be fed or streamed.
+	 */
+	default void connect() {
+		throw new UnsupportedOperationException(getClass().getName() + " cannot be connected");
+	}
+
 	/**
 	 * Set the WXS Schema (XSD) file for validation.
 	 * 
@@ -89,4 +101,18 @@ public interface MessageHandler extends ConfigurationContants {
 	 */
 	public void validate(Source xml) throws SAXException, IOException;
 
-}
\ No newline at end of file
+	/**
+	 * Validate documents against the schema while they are processed, instead
+	 * of reading them a second time to validate.
+	 * 
+	 * The default implementation only supports turning validation off.
+	 * 
+	 * @param validating
+	 *            true to validate, false to stop validating
+	 */
+	default void setValidating(boolean validating) {
+		if (validating) {
+			throw new UnsupportedOperationException(getClass().getName() + " cannot validate while processing");
+		}
+	}
+}
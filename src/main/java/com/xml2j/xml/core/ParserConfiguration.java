@@ -58,6 +58,9 @@ public class ParserConfiguration {
 	
 	/** the properties bag. */
 	private Properties properties = null;
+
+	/** compiled snapshot of the properties, published when loading completes. */
+	private volatile PathTable pathTable = null;
 	
 	/** config the name of the configuration file. */
 	private String propertiesFile = null;
@@ -97,6 +100,7 @@ public class ParserConfiguration {
 		}
 
 		read(new FileInputStream(propertiesFile));
+		pathTable = PathTable.compile(properties);
 		log();
 	}
 
@@ -162,13 +166,24 @@ public class ParserConfiguration {
 	
 	/**
 	 * Get the specified property from the property bag.
+	 * The property is read from the compiled snapshot, so no locking is involved.
 	 * @param key the key under which the property is stored
 	 * @return the value associated with the key
 	 */
-	synchronized public String getProperty(String key) {
-		if (!isLoad()) {
+	public String getProperty(String key) {
+		return getPathTable().getProperty(key);
+	}
+
+	/**
+	 * Get the compiled path table of the loaded configuration.
+	 * @return the path table
+	 * @throws ParserConfigurationException if the configuration was not loaded
+	 */
+	public PathTable getPathTable() {
+		PathTable table = pathTable;
+		if (table == null || table.isEmpty()) {
 			throw new ParserConfigurationException( msg[MSG_NO_PROPERTIES] );
 		}
-		return properties.getProperty(key);
+		return table;
 	}
 }
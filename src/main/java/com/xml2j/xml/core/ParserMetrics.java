@@ -0,0 +1,301 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.xml2j.util.LatencyHistogram;
+
+/**
+ * Runtime metrics of the parse: documents, bytes, elements per path, records
+ * passed to the processor, parse time and processor time.
+ * 
+ * Metrics are only collected if the system property <code>xml2j.metrics</code>
+ * is "true" when this class is loaded. ENABLED is a constant, so when metrics
+ * are disabled the instrumentation is removed by the JIT compiler.
+ * 
+ * Each ParserTask has its own metrics, registered as MBean under
+ * "com.xml2j:type=ParserTask,name=...". Every update is also applied to the
+ * aggregate, which is registered as "com.xml2j:type=Parser,name=aggregate".
+ * Use {@link #unregister()} when a task is discarded.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public final class ParserMetrics implements ParserMetricsMBean {
+	static final Logger logger = LoggerFactory.getLogger(ParserMetrics.class);
+
+	/** system property that enables the metrics. */
+	public static final String METRICS = "xml2j.metrics";
+	/** indicates whether metrics are collected. */
+	public static final boolean ENABLED = Boolean.getBoolean(METRICS);
+
+	/** JMX domain of the MBeans. */
+	static final String DOMAIN = "com.xml2j";
+	/** number of nanoseconds per microsecond. */
+	private static final long MICROS = 1000;
+
+	/** the metrics of all tasks. */
+	private static final ParserMetrics aggregate = ENABLED ? new ParserMetrics(null, "type=Parser,name=aggregate") : null;
+	/** sequence number of tasks. */
+	private static final AtomicInteger sequence = new AtomicInteger();
+
+	private final ParserMetrics parent;
+	private final ObjectName name;
+	private final LongAdder documents = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder bytes = new LongAdder();
+	private final LongAdder elements = new LongAdder();
+	private final LongAdder records = new LongAdder();
+	private final LongAdder dedupHits = new LongAdder();
+	private final LongAdder dedupMisses = new LongAdder();
+	private final ConcurrentHashMap<String, LongAdder> paths = new ConcurrentHashMap<>();
+	private final LatencyHistogram parseTime = new LatencyHistogram();
+	private final LatencyHistogram processorTime = new LatencyHistogram();
+
+	private ParserMetrics(ParserMetrics parent, String key) {
+		this.parent = parent;
+		this.name = register(key);
+	}
+
+	/**
+	 * Create and register the metrics of a task.
+	 * @param task a name for the task (e.g. its class name)
+	 * @return the metrics or null if metrics are disabled
+	 */
+	public static ParserMetrics forTask(String task) {
+		if (!ENABLED)
+			return null;
+		return new ParserMetrics(aggregate, "type=ParserTask,name=" + ObjectName.quote(task + "-" + sequence.incrementAndGet()));
+	}
+
+	/**
+	 * @return the aggregate metrics or null if metrics are disabled
+	 */
+	public static ParserMetrics getAggregate() {
+		return aggregate;
+	}
+
+	/**
+	 * Remove the MBean of these metrics.
+	 */
+	public void unregister() {
+		if (name == null)
+			return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+		} catch (JMException e) {
+			logger.debug("Cannot unregister {}: {}", name, e.getMessage());
+		}
+	}
+
+	/**
+	 * The counters of the elements of a path, in a task and in the aggregate.
+	 */
+	static final class PathCounter {
+		private final LongAdder task;
+		private final LongAdder all;
+
+		PathCounter(LongAdder task, LongAdder all) {
+			this.task = task;
+			this.all = all;
+		}
+	}
+
+	/**
+	 * Get the counters of the elements of a path. Handlers get their counters once.
+	 * @param path the path
+	 * @return the counters
+	 */
+	PathCounter pathCounter(String path) {
+		return new PathCounter(counter(path), parent != null ? parent.counter(path) : null);
+	}
+
+	private LongAdder counter(String path) {
+		return paths.computeIfAbsent(path, p -> new LongAdder());
+	}
+
+	/**
+	 * Count an element.
+	 * @param counter the counters of its path
+	 */
+	void element(PathCounter counter) {
+		counter.task.increment();
+		elements.increment();
+		if (parent != null) {
+			counter.all.increment();
+			parent.elements.increment();
+		}
+	}
+
+	/**
+	 * Record a call of the processor.
+	 * @param evt the event
+	 * @param nanos the time spent in the processor
+	 */
+	void processed(XMLEvent evt, long nanos) {
+		if (evt == XMLEvent.END) {
+			records.increment();
+		}
+		processorTime.record(nanos);
+		if (parent != null) {
+			parent.processed(evt, nanos);
+		}
+	}
+
+	/**
+	 * Record lookups in the caches of '@dedup' paths.
+	 * @param hits the number of lookups that returned a cached String
+	 * @param misses the number of lookups that created a String
+	 */
+	void deduplicated(long hits, long misses) {
+		dedupHits.add(hits);
+		dedupMisses.add(misses);
+		if (parent != null) {
+			parent.deduplicated(hits, misses);
+		}
+	}
+
+	/**
+	 * Record a parsed document.
+	 * @param nanos the time to parse the document
+	 * @param bytesRead the number of bytes read (or 0 if not known)
+	 * @param completed false if the parse failed
+	 */
+	void parsed(long nanos, long bytesRead, boolean completed) {
+		documents.increment();
+		if (!completed) {
+			failed.increment();
+		}
+		bytes.add(bytesRead);
+		parseTime.record(nanos);
+		if (parent != null) {
+			parent.parsed(nanos, bytesRead, completed);
+		}
+	}
+
+	public long getDocuments() {
+		return documents.sum();
+	}
+
+	public long getFailedDocuments() {
+		return failed.sum();
+	}
+
+	public long getBytes() {
+		return bytes.sum();
+	}
+
+	public long getElements() {
+		return elements.sum();
+	}
+
+	public long getRecords() {
+		return records.sum();
+	}
+
+	public long getDedupHits() {
+		return dedupHits.sum();
+	}
+
+	public long getDedupMisses() {
+		return dedupMisses.sum();
+	}
+
+	public double getDedupHitRate() {
+		long hits = dedupHits.sum();
+		long n = hits + dedupMisses.sum();
+		return n == 0 ? 0 : (double) hits / n;
+	}
+
+	public String[] getElementsByPath() {
+		Map<String, Long> sorted = new TreeMap<>();
+		for (Map.Entry<String, LongAdder> e : paths.entrySet()) {
+			sorted.put(e.getKey(), e.getValue().sum());
+		}
+		String[] result = new String[sorted.size()];
+		int i = 0;
+		for (Map.Entry<String, Long> e : sorted.entrySet()) {
+			result[i++] = e.getKey() + "=" + e.getValue();
+		}
+		return result;
+	}
+
+	public long getParseMeanMicros() {
+		return parseTime.getMeanNanos() / MICROS;
+	}
+
+	public long getParseP99Micros() {
+		return parseTime.getPercentileNanos(99.0) / MICROS;
+	}
+
+	public long getProcessorTotalMicros() {
+		return processorTime.getTotalNanos() / MICROS;
+	}
+
+	public long getProcessorMeanMicros() {
+		return processorTime.getMeanNanos() / MICROS;
+	}
+
+	public long getProcessorP99Micros() {
+		return processorTime.getPercentileNanos(99.0) / MICROS;
+	}
+
+	public void reset() {
+		documents.reset();
+		failed.reset();
+		bytes.reset();
+		elements.reset();
+		records.reset();
+		dedupHits.reset();
+		dedupMisses.reset();
+		for (LongAdder counter : paths.values()) {
+			counter.reset();
+		}
+		parseTime.reset();
+		processorTime.reset();
+	}
+
+	private ObjectName register(String key) {
+		try {
+			ObjectName n = new ObjectName(DOMAIN + ":" + key);
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(this, n);
+			return n;
+		} catch (JMException e) {
+			logger.warn("Cannot register metrics {}: {}", key, e.getMessage());
+			return null;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+/**
+ * Management interface of the ParserMetrics.
+ * Durations are reported in microseconds.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public interface ParserMetricsMBean {
+	/** @return the number of documents parsed */
+	public long getDocuments();
+
+	/** @return the number of documents that failed */
+	public long getFailedDocuments();
+
+	/** @return the number of bytes read from byte streams */
+	public long getBytes();
+
+	/** @return the number of elements handled */
+	public long getElements();
+
+	/** @return the number of elements passed to the processor (END events) */
+	public long getRecords();
+
+	/** @return the number of values of '@dedup' paths that were found in the cache */
+	public long getDedupHits();
+
+	/** @return the number of values of '@dedup' paths that were not found in the cache */
+	public long getDedupMisses();
+
+	/** @return the share of values of '@dedup' paths that were found in the cache */
+	public double getDedupHitRate();
+
+	/** @return the number of elements handled per path, as "path=count" */
+	public String[] getElementsByPath();
+
+	/** @return the mean time to parse a document */
+	public long getParseMeanMicros();
+
+	/** @return the 99th percentile of the time to parse a document (upper bound) */
+	public long getParseP99Micros();
+
+	/** @return the total time spent in the processor */
+	public long getProcessorTotalMicros();
+
+	/** @return the mean time spent in the processor per call */
+	public long getProcessorMeanMicros();
+
+	/** @return the 99th percentile of the time spent in the processor per call (upper bound) */
+	public long getProcessorP99Micros();
+
+	/** Clear all counters. */
+	public void reset();
+}
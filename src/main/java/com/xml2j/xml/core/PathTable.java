@@ -0,0 +1,304 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Compiled, immutable view of the path settings in the runtime configuration.
+ *
+ * A path setting is a property of the form <code>path/@name=value</code>, for
+ * instance <code>root/items/item/@detach=true</code>. The path may contain the
+ * wildcards '*' (exactly one element) and '**' (any number of elements), as in
+ * <code>**&#47;item/@detach=true</code>. An exact path takes precedence over a
+ * pattern, and a pattern with more literal elements takes precedence over a
+ * pattern with fewer.
+ *
+ * The table is built once when the configuration is loaded and can be read by
+ * any number of threads without locking.
+ *
+ * @author Lolke B. Dijkstra
+ */
+public final class PathTable {
+	/** separates the path from the setting name. */
+	static final String SETTING = "/@";
+	/** matches exactly one element in a path. */
+	static final String ANY_ELEMENT = "*";
+	/** matches any number of elements in a path. */
+	static final String ANY_PATH = "**";
+	/** upper bound for the number of paths remembered by resolve. */
+	static final int MAX_RESOLVED = 4096;
+
+	/** name of the setting used for processing. */
+	public static final String PROCESS = "process";
+	/** name of the setting used for detaching. */
+	public static final String DETACH = "detach";
+	/** name of the setting used for recycling detached elements. */
+	public static final String RECYCLE = "recycle";
+	/** name of the setting used for sharing repeated values. */
+	public static final String DEDUP = "dedup";
+	/** name of the setting used for skipping elements. */
+	public static final String SKIP = "skip";
+
+	/**
+	 * The settings that apply to a single path.
+	 */
+	public static final class Entry {
+		/** the entry for a path without settings. */
+		static final Entry EMPTY = new Entry(Collections.<String, String>emptyMap());
+
+		private final Map<String, String> settings;
+		private final boolean process;
+		private final boolean detach;
+
+		Entry(Map<String, String> settings) {
+			this.settings = settings;
+			this.process = isTrue(settings.get(PROCESS));
+			this.detach = isTrue(settings.get(DETACH));
+		}
+
+		/**
+		 * Get the value of a setting.
+		 * @param name the name of the setting (without '@')
+		 * @return the value or null if not set
+		 */
+		public String getSetting(String name) {
+			return settings.get(name);
+		}
+
+		/**
+		 * Finds out whether a setting is present and not "false" (ignored case).
+		 * @param name the name of the setting (without '@')
+		 * @return true if set, false otherwise
+		 */
+		public boolean isSet(String name) {
+			return isTrue(settings.get(name));
+		}
+
+		/**
+		 * @return true if '@process' is set for the path
+		 */
+		public boolean isProcess() {
+			return process;
+		}
+
+		/**
+		 * @return true if '@detach' is set for the path
+		 */
+		public boolean isDetach() {
+			return detach;
+		}
+	}
+
+	/**
+	 * A setting with a wildcard path.
+	 */
+	private static final class Pattern {
+		final String[] elements;
+		final String name;
+		final String value;
+		final int literals;
+
+		Pattern(String[] elements, String name, String value) {
+			this.elements = elements;
+			this.name = name;
+			this.value = value;
+			int n = 0;
+			for (String e : elements) {
+				if (!isWildcard(e))
+					n++;
+			}
+			this.literals = n;
+		}
+
+		boolean matches(String[] path) {
+			return match(elements, 0, path, 0);
+		}
+	}
+
+	/** raw properties. */
+	private final Map<String, String> properties;
+	/** settings of paths without wildcards. */
+	private final Map<String, Map<String, String>> exact;
+	/** settings of paths with wildcards, most specific first. */
+	private final Pattern[] patterns;
+	/** the names of the settings that appear in the table. */
+	private final Set<String> names;
+	/** paths resolved so far. */
+	private final ConcurrentHashMap<String, Entry> resolved = new ConcurrentHashMap<>();
+
+	private PathTable(Map<String, String> properties, Map<String, Map<String, String>> exact, Pattern[] patterns,
+			Set<String> names) {
+		this.properties = properties;
+		this.exact = exact;
+		this.patterns = patterns;
+		this.names = names;
+	}
+
+	/**
+	 * Compile the path table from the configuration properties.
+	 * @param properties the runtime properties
+	 * @return the compiled table
+	 */
+	public static PathTable compile(Map<?, ?> properties) {
+		assert (properties != null);
+
+		Map<String, String> raw = new HashMap<>();
+		Map<String, Map<String, String>> exact = new HashMap<>();
+		List<Pattern> patterns = new ArrayList<>();
+		Set<String> names = new HashSet<>();
+
+		for (Map.Entry<?, ?> p : properties.entrySet()) {
+			raw.put(p.getKey().toString(), p.getValue().toString());
+
+			String key = p.getKey().toString().trim();
+			String value = p.getValue().toString().trim();
+
+			int at = key.lastIndexOf(SETTING);
+			if (at <= 0)
+				continue;
+
+			String path = key.substring(0, at);
+			String name = key.substring(at + SETTING.length());
+			if (isTrue(value)) {
+				names.add(name);
+			}
+			if (path.indexOf('*') < 0) {
+				Map<String, String> settings = exact.get(path);
+				if (settings == null) {
+					settings = new HashMap<>();
+					exact.put(path, settings);
+				}
+				settings.put(name, value);
+			} else {
+				patterns.add(new Pattern(path.split("/"), name, value));
+			}
+		}
+
+		Pattern[] sorted = patterns.toArray(new Pattern[patterns.size()]);
+		Arrays.sort(sorted, new Comparator<Pattern>() {
+			public int compare(Pattern p, Pattern q) {
+				return q.literals - p.literals;
+			}
+		});
+		return new PathTable(Collections.unmodifiableMap(raw), exact, sorted, names);
+	}
+
+	/**
+	 * @return true if the table contains no properties
+	 */
+	public boolean isEmpty() {
+		return properties.isEmpty();
+	}
+
+	/**
+	 * Finds out whether a setting is set for any path, so handlers can leave
+	 * out checks for settings that are not used.
+	 * @param name the name of the setting (without '@')
+	 * @return true if some path sets the setting (to a value other than "false")
+	 */
+	public boolean isUsed(String name) {
+		return names.contains(name);
+	}
+
+	/**
+	 * Get a property as it appears in the configuration.
+	 * @param key the key under which the property is stored
+	 * @return the value associated with the key
+	 */
+	public String getProperty(String key) {
+		return properties.get(key);
+	}
+
+	/**
+	 * Get the settings for a path.
+	 * @param path the XML path relative to document root (e.g. "root/items/item")
+	 * @return the settings (never null)
+	 */
+	public Entry resolve(String path) {
+		Entry entry = resolved.get(path);
+		if (entry == null) {
+			entry = compute(path);
+			if (resolved.size() < MAX_RESOLVED) {
+				resolved.putIfAbsent(path, entry);
+			}
+		}
+		return entry;
+	}
+
+	private Entry compute(String path) {
+		Map<String, String> settings = exact.get(path);
+		if (patterns.length == 0) {
+			return settings == null ? Entry.EMPTY : new Entry(settings);
+		}
+
+		Map<String, String> merged = settings == null ? new HashMap<String, String>() : new HashMap<>(settings);
+		String[] elements = path.split("/");
+		for (Pattern p : patterns) {
+			if (!merged.containsKey(p.name) && p.matches(elements)) {
+				merged.put(p.name, p.value);
+			}
+		}
+		return merged.isEmpty() ? Entry.EMPTY : new Entry(merged);
+	}
+
+	private static boolean match(String[] pattern, int i, String[] path, int j) {
+		while (i < pattern.length) {
+			String e = pattern[i];
+			if (ANY_PATH.equals(e)) {
+				if (i == pattern.length - 1)
+					return true;
+				for (int k = j; k <= path.length; k++) {
+					if (match(pattern, i + 1, path, k))
+						return true;
+				}
+				return false;
+			}
+			if (j == path.length)
+				return false;
+			if (!ANY_ELEMENT.equals(e) && !e.equals(path[j]))
+				return false;
+			i++;
+			j++;
+		}
+		return j == path.length;
+	}
+
+	private static boolean isWildcard(String element) {
+		return ANY_ELEMENT.equals(element) || ANY_PATH.equals(element);
+	}
+
+	static boolean isTrue(String value) {
+		return value != null && !value.equalsIgnoreCase(ConfigurationContants.FALSE);
+	}
+}
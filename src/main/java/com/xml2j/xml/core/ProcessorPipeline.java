@@ -0,0 +1,261 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pipeline stage between the parser thread and a pool of processor threads.
+ * 
+ * The pipeline wraps the application's processor. END events are placed in a
+ * bounded ring buffer that is allocated once, and are processed by the
+ * processor threads, so parsing and processing overlap. If the ring buffer
+ * is full the parser waits (back-pressure). START events are processed on the
+ * parser thread, as the element is still being filled at that point.
+ * 
+ * With more than one processor thread, elements are processed concurrently and
+ * not necessarily in document order, so the wrapped processor must be
+ * thread-safe. An error in the processor is reported to the parser thread by
+ * the next call to process and by flush, which the ParserTask calls at the end
+ * of the document. Once an error occurred, the remaining elements are dropped.
+ * 
+ * Use {@link #close()} to stop the processor threads.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public class ProcessorPipeline implements FlushableMessageProcessor, AutoCloseable {
+	/** the application's processor. */
+	private final MessageProcessor processor;
+	/** the ring buffer. */
+	private final ComplexDataType[] ring;
+	/** the processor threads. */
+	private final Thread[] workers;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notFull = lock.newCondition();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition idle = lock.newCondition();
+
+	/** next slot to take from. */
+	private int head = 0;
+	/** number of elements in the ring buffer. */
+	private int count = 0;
+	/** number of elements that were put and not completed. */
+	private int pending = 0;
+	/** the first error of the processor (read by the workers without the lock). */
+	private volatile Throwable failure = null;
+	/** number of processor threads that are running. */
+	private int live;
+	/** indicates whether the pipeline was closed. */
+	private boolean closed = false;
+
+	/**
+	 * Constructor.
+	 * @param processor the application's processor
+	 * @param capacity the size of the ring buffer
+	 * @param threads the number of processor threads
+	 */
+	public ProcessorPipeline(MessageProcessor processor, int capacity, int threads) {
+		assert (processor != null && capacity > 0 && threads > 0);
+		this.processor = processor;
+		this.ring = new ComplexDataType[capacity];
+		this.workers = new Thread[threads];
+		this.live = threads;
+		for (int i = 0; i != threads; i++) {
+			Thread t = new Thread(this::work, "xml2j-processor-" + i);
+			t.setDaemon(true);
+			workers[i] = t;
+			t.start();
+		}
+	}
+
+	/** {@inheritDoc} */
+	public void process(XMLEvent evt, ComplexDataType data) throws ProcessorException {
+		if (evt == XMLEvent.START) {
+			checkFailure();
+			processor.process(evt, data);
+			return;
+		}
+
+		lock.lock();
+		try {
+			while (count == ring.length && failure == null && !closed) {
+				notFull.await();
+			}
+			rethrow();
+			if (closed) {
+				throw new ProcessorException("Pipeline closed.");
+			}
+			ring[(head + count) % ring.length] = data;
+			count++;
+			pending++;
+			notEmpty.signal();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ProcessorException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Wait until all elements are processed, then flush the wrapped processor
+	 * if it is a FlushableMessageProcessor.
+	 * @throws ProcessorException if the processing of an element failed
+	 */
+	public void flush() throws ProcessorException {
+		lock.lock();
+		try {
+			while (pending > 0 && !closed) {
+				idle.await();
+			}
+			Throwable t = failure;
+			failure = null;
+			if (t != null) {
+				throw wrap(t);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ProcessorException(e);
+		} finally {
+			lock.unlock();
+		}
+
+		if (processor instanceof FlushableMessageProcessor) {
+			((FlushableMessageProcessor) processor).flush();
+		}
+	}
+
+	/**
+	 * Stop the processor threads. Elements that were not processed yet are dropped.
+	 */
+	public void close() {
+		lock.lock();
+		try {
+			closed = true;
+			drop();
+			notEmpty.signalAll();
+			notFull.signalAll();
+			idle.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void work() {
+		for (;;) {
+			ComplexDataType data;
+			lock.lock();
+			try {
+				while (count == 0 && !closed) {
+					notEmpty.await();
+				}
+				if (closed) {
+					live--;
+					return;
+				}
+				data = ring[head];
+				ring[head] = null;
+				head = (head + 1) % ring.length;
+				count--;
+				notFull.signal();
+			} catch (InterruptedException e) {
+				if (--live == 0) {
+					// nobody takes the remaining elements..
+					if (failure == null) {
+						failure = new ProcessorException("Processor threads interrupted.");
+					}
+					drop();
+					notFull.signalAll();
+				}
+				return;
+			} finally {
+				lock.unlock();
+			}
+
+			Throwable error = null;
+			if (failure == null) {
+				try {
+					processor.process(XMLEvent.END, data);
+				} catch (Throwable t) {
+					error = t;
+				}
+			}
+			complete(error);
+		}
+	}
+
+	private void complete(Throwable error) {
+		lock.lock();
+		try {
+			if (error != null && failure == null) {
+				failure = error;
+				notFull.signalAll();
+			}
+			if (--pending == 0) {
+				idle.signalAll();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Drop the elements in the ring buffer. Must be called with the lock held.
+	 */
+	private void drop() {
+		while (count > 0) {
+			ring[head] = null;
+			head = (head + 1) % ring.length;
+			count--;
+			pending--;
+		}
+		if (pending == 0) {
+			idle.signalAll();
+		}
+	}
+
+	private void checkFailure() {
+		lock.lock();
+		try {
+			rethrow();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void rethrow() {
+		if (failure != null) {
+			throw wrap(failure);
+		}
+	}
+
+	private static ProcessorException wrap(Throwable t) {
+		if (t instanceof ProcessorException)
+			return (ProcessorException) t;
+		if (t instanceof Exception)
+			return new ProcessorException((Exception) t);
+		return new ProcessorException(t.toString());
+	}
+}
@@ -0,0 +1,506 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stores elements off-heap, so records that wait in a queue do not keep a
+ * graph of small objects on the heap.
+ * 
+ * The arena copies an element into a segment (a direct ByteBuffer) and returns
+ * a Record: a small read-only accessor for the name, attributes and content
+ * of the element. The data of derived types (child elements etc.) is stored in
+ * the format of the BinaryEncoder and restored by {@link Record#materialize}.
+ * Element, attribute and type names are stored once per arena.
+ * 
+ * A segment is reused as a whole once it is full and all records in it are
+ * released, so a consumer must release each record when it is done with it.
+ * A record must not be used after it is released. Records can be added by one
+ * thread and read and released by others, if they are handed over by a
+ * thread-safe queue.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public final class RecordArena implements AutoCloseable {
+	/** default size of a segment. */
+	public static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+	/** default number of released segments kept for reuse. */
+	public static final int DEFAULT_MAX_FREE_SEGMENTS = 16;
+
+	/** size of the fixed part of a record: type, name, number of attributes, content. */
+	private static final int HEADER = 20;
+	/** size of an attribute: name, offset and length of the value. */
+	private static final int ATTRIBUTE = 12;
+	/** length of a missing value. */
+	private static final int NULL = -1;
+
+	private final int segmentSize;
+	private final int maxFreeSegments;
+	/** released segments that can be reused. */
+	private final ArrayDeque<Segment> free = new ArrayDeque<>();
+	/** the segment records are added to. */
+	private Segment current = null;
+	private int segmentCount = 0;
+	private long allocatedBytes = 0;
+	private boolean closed = false;
+
+	/** index of each symbol. */
+	private final Map<String, Integer> symbolIndex = new HashMap<>();
+	/** symbols by index, replaced when it grows. */
+	private volatile String[] symbols = new String[64];
+
+	/** buffer for the fields of derived types. */
+	private final ByteArrayOutputStream fields = new ByteArrayOutputStream();
+	/** writes the fields of derived types. */
+	private BinaryEncoder encoder = null;
+
+	/**
+	 * Constructor, with segments of DEFAULT_SEGMENT_SIZE.
+	 */
+	public RecordArena() {
+		this(DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_FREE_SEGMENTS);
+	}
+
+	/**
+	 * Constructor.
+	 * @param segmentSize the size of a segment in bytes
+	 * @param maxFreeSegments the number of released segments kept for reuse
+	 */
+	public RecordArena(int segmentSize, int maxFreeSegments) {
+		assert (segmentSize >= 1024 && maxFreeSegments >= 0);
+		this.segmentSize = segmentSize;
+		this.maxFreeSegments = maxFreeSegments;
+	}
+
+	/**
+	 * Copy an element into the arena. The element itself is not changed and
+	 * can be released afterwards.
+	 * @param element the element
+	 * @return the record
+	 * @throws ProcessorException if the fields of the element cannot be written
+	 */
+	public synchronized Record add(ComplexDataType element) throws ProcessorException {
+		if (closed)
+			throw new IllegalStateException("RecordArena is closed");
+
+		Set<Map.Entry<String, String>> atts = element.attributeEntries();
+		CharSequence content = element.getContentSequence();
+		int chars = content != null ? content.length() : 0;
+		for (Map.Entry<String, String> att : atts) {
+			chars += att.getValue() != null ? att.getValue().length() : 0;
+		}
+
+		fields.reset();
+		try {
+			if (encoder == null) {
+				encoder = new BinaryEncoder(fields);
+			} else {
+				encoder.reset();
+			}
+			element.writeFields(encoder);
+			encoder.flush();
+		} catch (IOException e) {
+			throw new ProcessorException(e);
+		}
+		int payload = fields.size();
+
+		int size = HEADER + atts.size() * ATTRIBUTE + 2 * chars + 4 + payload;
+		Segment s = reserve(size);
+		ByteBuffer b = s.buffer;
+		int offset = s.used;
+		int pos = offset + HEADER + atts.size() * ATTRIBUTE;
+
+		b.putInt(offset, symbol(element.getClass().getName()));
+		b.putInt(offset + 4, symbol(element.getXMLElementName()));
+		b.putInt(offset + 8, atts.size());
+		int a = offset + HEADER;
+		for (Map.Entry<String, String> att : atts) {
+			b.putInt(a, symbol(att.getKey()));
+			b.putInt(a + 4, pos);
+			b.putInt(a + 8, att.getValue() != null ? att.getValue().length() : NULL);
+			pos = putChars(b, pos, att.getValue());
+			a += ATTRIBUTE;
+		}
+		b.putInt(offset + 12, pos);
+		b.putInt(offset + 16, content != null ? content.length() : NULL);
+		pos = putChars(b, pos, content);
+
+		b.putInt(pos, payload);
+		pos += 4;
+		byte[] bytes = fields.toByteArray();
+		for (int i = 0; i != payload; i++) {
+			b.put(pos + i, bytes[i]);
+		}
+
+		s.used = pos + payload;
+		s.live.incrementAndGet();
+		if (s != current) {
+			s.seal();
+		}
+		return new Record(s, offset);
+	}
+
+	/**
+	 * @return the number of segments in use or kept for reuse
+	 */
+	public synchronized int getSegmentCount() {
+		return segmentCount;
+	}
+
+	/**
+	 * @return the off-heap memory held by the segments
+	 */
+	public synchronized long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * Drop all segments. The records must not be used afterwards. The memory
+	 * of the direct buffers is freed by the garbage collector.
+	 */
+	public synchronized void close() {
+		closed = true;
+		current = null;
+		free.clear();
+		segmentCount = 0;
+		allocatedBytes = 0;
+	}
+
+	/**
+	 * Find room for a record.
+	 * @param size the size of the record
+	 * @return the segment, with room at used (not the current segment if the record is too large)
+	 */
+	private Segment reserve(int size) {
+		if (current != null && current.buffer.capacity() - current.used >= size)
+			return current;
+
+		if (size > segmentSize) {
+			// too large for a segment: it gets a segment of its own
+			Segment s = allocate(size);
+			s.live.set(1);
+			return s;
+		}
+		if (current != null) {
+			current.seal();
+		}
+		Segment s = free.poll();
+		current = s != null ? s : allocate(segmentSize);
+		current.used = 0;
+		current.live.set(1);
+		return current;
+	}
+
+	private Segment allocate(int size) {
+		segmentCount++;
+		allocatedBytes += size;
+		return new Segment(ByteBuffer.allocateDirect(size));
+	}
+
+	/**
+	 * Called when a segment is full and its records are released.
+	 */
+	private synchronized void recycle(Segment s) {
+		if (!closed && s.buffer.capacity() == segmentSize && free.size() < maxFreeSegments) {
+			free.push(s);
+		} else if (!closed) {
+			segmentCount--;
+			allocatedBytes -= s.buffer.capacity();
+		}
+	}
+
+	private int symbol(String symbol) {
+		Integer index = symbolIndex.get(symbol);
+		if (index != null)
+			return index;
+
+		int i = symbolIndex.size();
+		String[] s = symbols;
+		if (i == s.length) {
+			s = Arrays.copyOf(s, i * 2);
+		}
+		s[i] = symbol;
+		symbols = s;
+		symbolIndex.put(symbol, i);
+		return i;
+	}
+
+	private static int putChars(ByteBuffer b, int pos, CharSequence chars) {
+		if (chars != null) {
+			for (int i = 0, n = chars.length(); i != n; i++, pos += 2) {
+				b.putChar(pos, chars.charAt(i));
+			}
+		}
+		return pos;
+	}
+
+	/**
+	 * A segment and the number of its records that are not released.
+	 */
+	private final class Segment {
+		final ByteBuffer buffer;
+		/** number of bytes in use. */
+		int used = 0;
+		/** live records, plus one while records are added to the segment. */
+		final AtomicInteger live = new AtomicInteger();
+
+		Segment(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		/** No more records are added. */
+		void seal() {
+			release();
+		}
+
+		void release() {
+			if (live.decrementAndGet() == 0) {
+				recycle(this);
+			}
+		}
+	}
+
+	/**
+	 * Read-only view of an element in the arena.
+	 */
+	public final class Record {
+		private Segment segment;
+		private final int offset;
+
+		Record(Segment segment, int offset) {
+			this.segment = segment;
+			this.offset = offset;
+		}
+
+		/**
+		 * @return name of the element
+		 */
+		public String getXMLElementName() {
+			return symbols[buffer().getInt(offset + 4)];
+		}
+
+		/**
+		 * @return the name of the class of the element
+		 */
+		public String getTypeName() {
+			return symbols[buffer().getInt(offset)];
+		}
+
+		/**
+		 * @return the number of attributes
+		 */
+		public int getAttributeCount() {
+			return buffer().getInt(offset + 8);
+		}
+
+		/**
+		 * @param i the position of the attribute
+		 * @return the name of the attribute
+		 */
+		public String getAttrName(int i) {
+			return symbols[buffer().getInt(attribute(i))];
+		}
+
+		/**
+		 * @param i the position of the attribute
+		 * @return the value of the attribute
+		 */
+		public CharSequence getAttrValue(int i) {
+			int a = attribute(i);
+			return chars(buffer().getInt(a + 4), buffer().getInt(a + 8));
+		}
+
+		/**
+		 * Retrieve the attribute value corresponding to attrName.
+		 * @param attrName the name of the attribute
+		 * @return it's value
+		 */
+		public String getAttr(String attrName) {
+			for (int i = 0, n = getAttributeCount(); i != n; i++) {
+				if (getAttrName(i).equals(attrName)) {
+					CharSequence value = getAttrValue(i);
+					return value != null ? value.toString() : null;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * @return the content
+		 */
+		public String getContent() {
+			CharSequence content = getContentSequence();
+			return content != null ? content.toString() : null;
+		}
+
+		/**
+		 * Get the content without creating a String.
+		 * @return the content, valid until the record is released
+		 */
+		public CharSequence getContentSequence() {
+			return chars(buffer().getInt(offset + 12), buffer().getInt(offset + 16));
+		}
+
+		/**
+		 * Create the element on the heap, including the data of derived types.
+		 * The element has no parent.
+		 * @param registry the allocators of the types
+		 * @return the element
+		 * @throws ProcessorException if the type is not registered
+		 */
+		public ComplexDataType materialize(TypeRegistry registry) throws ProcessorException {
+			ByteBuffer b = buffer();
+			TypeAllocator<?> allocator = registry.get(getTypeName());
+			if (allocator == null)
+				throw new ProcessorException("No allocator registered for " + getTypeName());
+
+			ComplexDataType element = allocator.newInstance(getXMLElementName(), null);
+			for (int i = 0, n = getAttributeCount(); i != n; i++) {
+				CharSequence value = getAttrValue(i);
+				element.setAttr(getAttrName(i), value != null ? value.toString() : null);
+			}
+			String content = getContent();
+			if (content != null) {
+				element.setContent(content);
+			}
+
+			int pos = b.getInt(offset + 12) + 2 * Math.max(b.getInt(offset + 16), 0);
+			int payload = b.getInt(pos);
+			try {
+				element.readFields(new BinaryDecoder(new BufferInputStream(b, pos + 4, payload), registry));
+			} catch (IOException e) {
+				throw new ProcessorException(e);
+			}
+			return element;
+		}
+
+		/**
+		 * Release the record, so its segment can be reused.
+		 */
+		public void release() {
+			Segment s = segment;
+			if (s != null) {
+				segment = null;
+				s.release();
+			}
+		}
+
+		private ByteBuffer buffer() {
+			Segment s = segment;
+			if (s == null)
+				throw new IllegalStateException("Record is released");
+			return s.buffer;
+		}
+
+		private int attribute(int i) {
+			if (i < 0 || i >= getAttributeCount())
+				throw new IndexOutOfBoundsException(Integer.toString(i));
+			return offset + HEADER + i * ATTRIBUTE;
+		}
+
+		private CharSequence chars(int pos, int length) {
+			return length == NULL ? null : new Chars(segment.buffer, pos, length);
+		}
+	}
+
+	/**
+	 * Characters stored in a segment.
+	 */
+	private static final class Chars implements CharSequence {
+		private final ByteBuffer buffer;
+		private final int offset;
+		private final int length;
+
+		Chars(ByteBuffer buffer, int offset, int length) {
+			this.buffer = buffer;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		public int length() {
+			return length;
+		}
+
+		public char charAt(int index) {
+			if (index < 0 || index >= length)
+				throw new IndexOutOfBoundsException(Integer.toString(index));
+			return buffer.getChar(offset + 2 * index);
+		}
+
+		public CharSequence subSequence(int start, int end) {
+			if (start < 0 || end > length || start > end)
+				throw new IndexOutOfBoundsException(start + "," + end);
+			return new Chars(buffer, offset + 2 * start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			char[] c = new char[length];
+			for (int i = 0; i != length; i++) {
+				c[i] = buffer.getChar(offset + 2 * i);
+			}
+			return new String(c);
+		}
+	}
+
+	/**
+	 * Reads a range of a segment.
+	 */
+	private static final class BufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+		private int pos;
+		private final int end;
+
+		BufferInputStream(ByteBuffer buffer, int pos, int length) {
+			this.buffer = buffer;
+			this.pos = pos;
+			this.end = pos + length;
+		}
+
+		@Override
+		public int read() {
+			return pos < end ? buffer.get(pos++) & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (pos >= end)
+				return -1;
+			int n = Math.min(len, end - pos);
+			for (int i = 0; i != n; i++) {
+				b[off + i] = buffer.get(pos++);
+			}
+			return n;
+		}
+	}
+}
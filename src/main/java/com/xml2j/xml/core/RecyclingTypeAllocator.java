@@ -0,0 +1,118 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.util.ArrayDeque;
+
+/**
+ * TypeAllocator that keeps released instances in a bounded pool and reuses them.
+ * 
+ * The framework uses this allocator for paths that are configured with both
+ * '@detach' and '@recycle'. The processor releases an element by calling
+ * ComplexDataType.release once it is done with it. Elements that are never
+ * released are simply collected by the garbage collector.
+ * 
+ * Only types that declare support for recycling (ComplexDataType.isRecyclable)
+ * can be allocated; otherwise a ParserConfigurationException is thrown when the
+ * first instance is created.
+ * 
+ * @param <T> the type of the allocated elements
+ * @author Lolke B. Dijkstra
+ */
+public class RecyclingTypeAllocator<T extends ComplexDataType> implements TypeAllocator<T> {
+	/** default maximum number of pooled instances. */
+	public static final int DEFAULT_CAPACITY = 64;
+
+	/** the allocator that creates new instances. */
+	private final TypeAllocator<T> allocator;
+	/** the released instances. */
+	private final ArrayDeque<T> pool;
+	/** maximum number of pooled instances. */
+	private final int capacity;
+
+	/**
+	 * Constructor.
+	 * @param allocator the allocator that creates new instances
+	 */
+	public RecyclingTypeAllocator(TypeAllocator<T> allocator) {
+		this(allocator, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor.
+	 * @param allocator the allocator that creates new instances
+	 * @param capacity maximum number of pooled instances
+	 */
+	public RecyclingTypeAllocator(TypeAllocator<T> allocator, int capacity) {
+		assert (allocator != null && capacity > 0);
+		this.allocator = allocator;
+		this.capacity = capacity;
+		this.pool = new ArrayDeque<>(capacity);
+	}
+
+	/** {@inheritDoc} */
+	public T newInstance(String elementName, ComplexDataType parent) {
+		T instance;
+		synchronized (pool) {
+			instance = pool.poll();
+		}
+		if (instance == null) {
+			instance = allocator.newInstance(elementName, parent);
+			if (!instance.isRecyclable()) {
+				throw new ParserConfigurationException("Element '" + elementName + "' cannot be recycled: "
+						+ instance.getClass().getName() + " does not clear its data (see ComplexDataType.isRecyclable).");
+			}
+		}
+		instance.reuse(elementName, parent, this);
+		return instance;
+	}
+
+	/** {@inheritDoc} */
+	public void release(T instance) {
+		instance.release();
+	}
+
+	/**
+	 * Clear a released instance and return it to the pool.
+	 * @param instance the released instance
+	 */
+	@SuppressWarnings("unchecked")
+	void recycle(ComplexDataType instance) {
+		instance.clear();
+		instance.reuse(instance.getXMLElementName(), null, null);
+		synchronized (pool) {
+			if (pool.size() < capacity) {
+				pool.push((T) instance);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of pooled instances
+	 */
+	public int size() {
+		synchronized (pool) {
+			return pool.size();
+		}
+	}
+}
@@ -0,0 +1,314 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Process-wide cache of compiled WXS schemas.
+ * 
+ * A schema is identified by the system ids of its sources or, for a stream,
+ * by the SHA-256 hash of its content together with its system id (if any). Each schema is
+ * compiled once, also when multiple threads ask for it at the same time. The
+ * cache holds at most a fixed number of schemas and evicts the least recently
+ * used one.
+ * 
+ * A compiled Schema is thread-safe, its Validators are not. Each cached schema
+ * keeps a pool of validators, which are reset when they are released.
+ * 
+ * Sources without system id that are not streams (e.g. a DOMSource) are
+ * compiled every time and not cached.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public final class SchemaCache {
+	/** default maximum number of schemas. */
+	public static final int DEFAULT_CAPACITY = 32;
+	/** maximum number of idle validators per schema. */
+	public static final int MAX_IDLE_VALIDATORS = 16;
+
+	/** the process-wide cache. */
+	private static final SchemaCache instance = new SchemaCache(DEFAULT_CAPACITY);
+
+	/** schema factories are not thread-safe, so each thread has its own. */
+	private static final ThreadLocal<SchemaFactory> factory = new ThreadLocal<SchemaFactory>() {
+		@Override
+		protected SchemaFactory initialValue() {
+			return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		}
+	};
+
+	/**
+	 * A compiled schema and its pool of validators.
+	 */
+	public static final class CachedSchema {
+		private final Schema schema;
+		private final ArrayBlockingQueue<Validator> validators = new ArrayBlockingQueue<>(MAX_IDLE_VALIDATORS);
+
+		CachedSchema(Schema schema) {
+			this.schema = schema;
+		}
+
+		/**
+		 * @return the compiled schema
+		 */
+		public Schema getSchema() {
+			return schema;
+		}
+
+		/**
+		 * Create a handler that validates a stream of SAX events against the
+		 * schema. Unlike a Validator the handler is not pooled: it is kept by
+		 * the message handler that validates while processing.
+		 * @return a new validator handler
+		 */
+		public ValidatorHandler newValidatorHandler() {
+			return schema.newValidatorHandler();
+		}
+
+		/**
+		 * Get a validator. The validator must be returned with release.
+		 * @return an idle validator or a new one if none is idle
+		 */
+		public Validator acquire() {
+			Validator v = validators.poll();
+			return v != null ? v : schema.newValidator();
+		}
+
+		/**
+		 * Reset a validator and return it to the pool.
+		 * @param validator the validator
+		 */
+		public void release(Validator validator) {
+			validator.reset();
+			validators.offer(validator);
+		}
+	}
+
+	/** the cached schemas in order of use, the compilation may still be in progress. */
+	private final LinkedHashMap<String, FutureTask<CachedSchema>> schemas;
+
+	/**
+	 * Constructor.
+	 * @param capacity the maximum number of schemas
+	 */
+	public SchemaCache(final int capacity) {
+		assert (capacity > 0);
+		this.schemas = new LinkedHashMap<String, FutureTask<CachedSchema>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, FutureTask<CachedSchema>> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * @return the process-wide cache
+	 */
+	public static SchemaCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Get a compiled schema.
+	 * @param source the schema
+	 * @return the compiled schema
+	 * @throws SAXException the schema could not be compiled
+	 */
+	public CachedSchema get(Source source) throws SAXException {
+		return get(new Source[] { source });
+	}
+
+	/**
+	 * Get a schema compiled from multiple sources.
+	 * @param sources the schema sources
+	 * @return the compiled schema
+	 * @throws SAXException the schema could not be compiled
+	 */
+	public CachedSchema get(Source[] sources) throws SAXException {
+		assert (sources != null && sources.length > 0);
+
+		final Source[] replay = new Source[sources.length];
+		StringBuilder key = new StringBuilder();
+		for (int i = 0; i != sources.length; i++) {
+			replay[i] = identify(sources[i], key);
+			if (replay[i] == null) {
+				// not identifiable..
+				return new CachedSchema(factory.get().newSchema(sources));
+			}
+		}
+
+		FutureTask<CachedSchema> task;
+		boolean owner = false;
+		synchronized (schemas) {
+			task = schemas.get(key.toString());
+			if (task == null) {
+				task = new FutureTask<>(() -> new CachedSchema(factory.get().newSchema(replay)));
+				schemas.put(key.toString(), task);
+				owner = true;
+			}
+		}
+
+		if (owner) {
+			task.run();
+		}
+		try {
+			return task.get();
+		} catch (ExecutionException e) {
+			// do not cache failures..
+			synchronized (schemas) {
+				schemas.remove(key.toString(), task);
+			}
+			Throwable cause = e.getCause();
+			if (cause instanceof SAXException)
+				throw (SAXException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new SAXException(cause.toString());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SAXException("Interrupted while compiling schema.", e);
+		}
+	}
+
+	/**
+	 * @return the number of cached schemas
+	 */
+	public int size() {
+		synchronized (schemas) {
+			return schemas.size();
+		}
+	}
+
+	/**
+	 * Remove all schemas.
+	 */
+	public void clear() {
+		synchronized (schemas) {
+			schemas.clear();
+		}
+	}
+
+	/**
+	 * Append the identity of a source to the key.
+	 * @return a source that can be used in place of the original or null if the source has no identity
+	 */
+	private static Source identify(Source source, StringBuilder key) throws SAXException {
+		if (key.length() > 0) {
+			key.append('|');
+		}
+
+		String systemId = source.getSystemId();
+		if (!(source instanceof StreamSource)) {
+			if (systemId == null)
+				return null;
+			key.append(systemId);
+			return source;
+		}
+
+		StreamSource stream = (StreamSource) source;
+		if (stream.getInputStream() == null && stream.getReader() == null) {
+			if (systemId == null)
+				return null;
+			key.append(systemId);
+			return source;
+		}
+
+		// hash the content, the stream can only be read once..
+		try {
+			byte[] content = stream.getInputStream() != null
+					? readAll(stream.getInputStream())
+					: readAll(stream.getReader()).getBytes(StandardCharsets.UTF_8);
+			if (systemId != null) {
+				// relative includes are resolved against the system id..
+				key.append(systemId).append('#');
+			}
+			key.append("sha256:").append(sha256(content));
+			StreamSource copy = stream.getInputStream() != null
+					? new StreamSource(new ByteArrayInputStream(content))
+					: new StreamSource(new StringReader(new String(content, StandardCharsets.UTF_8)));
+			copy.setSystemId(systemId);
+			copy.setPublicId(stream.getPublicId());
+			return copy;
+		} catch (IOException e) {
+			throw new SAXException(e);
+		}
+	}
+
+	private static byte[] readAll(InputStream input) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buf = new byte[8192];
+		for (int n; (n = input.read(buf)) != -1;) {
+			out.write(buf, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	private static String readAll(Reader input) throws IOException {
+		StringBuilder out = new StringBuilder();
+		char[] buf = new char[8192];
+		for (int n; (n = input.read(buf)) != -1;) {
+			out.append(buf, 0, n);
+		}
+		return out.toString();
+	}
+
+	private static String sha256(byte[] content) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+			StringBuilder hex = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-256 is required on every platform..
+			throw new IllegalStateException(e);
+		}
+	}
+}
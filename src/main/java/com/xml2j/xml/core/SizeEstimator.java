@@ -0,0 +1,72 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.util.Map;
+
+/**
+ * Estimates the number of bytes an element occupies in memory.
+ * 
+ * The estimate covers the element itself, that is its name, attributes and
+ * content, not the elements it contains. Generated types that hold large
+ * amounts of data in fields of their own can be given a custom estimator.
+ * 
+ * The MemoryBudget charges every linked element separately, so the default
+ * estimator suits it. A BatchingMessageProcessor sees only the records, whose
+ * data is held by their child elements, so it requires an estimator that
+ * includes the children of the record type.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public interface SizeEstimator {
+	/** estimated size of an object header and reference fields. */
+	static final int OBJECT_OVERHEAD = 48;
+	/** estimated size of a String, apart from its characters. */
+	static final int STRING_OVERHEAD = 40;
+	/** estimated size of an attribute, apart from name and value. */
+	static final int ATTRIBUTE_OVERHEAD = 8;
+
+	/**
+	 * The default estimator: a fixed overhead per object plus two bytes per character.
+	 */
+	static final SizeEstimator DEFAULT = new SizeEstimator() {
+		public long estimate(ComplexDataType data) {
+			long size = OBJECT_OVERHEAD;
+			CharSequence content = data.getContentSequence();
+			if (content != null) {
+				size += STRING_OVERHEAD + 2L * content.length();
+			}
+			for (Map.Entry<String, String> att : data.attributeEntries()) {
+				String value = att.getValue();
+				size += ATTRIBUTE_OVERHEAD + (value == null ? 0 : STRING_OVERHEAD + 2L * value.length());
+			}
+			return size;
+		}
+	};
+
+	/**
+	 * @param data the element
+	 * @return the estimated number of bytes
+	 */
+	public long estimate(ComplexDataType data);
+}
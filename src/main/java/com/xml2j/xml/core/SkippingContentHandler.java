@@ -0,0 +1,50 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * A ContentHandler that can ignore the rest of an element ('@skip').
+ * 
+ * While the handler is skipping it ignores the events up to and including
+ * the end tag of the skipped element. A reader that can pass over the
+ * element without producing its events may do so, and then calls skipped
+ * instead of delivering the end tag.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public interface SkippingContentHandler extends ContentHandler {
+	/**
+	 * @return true if the events up to the end of the current element are ignored
+	 */
+	public boolean isSkipping();
+
+	/**
+	 * Called by a reader that passed over the rest of the skipped element,
+	 * including its end tag.
+	 * @throws SAXException error reported by the handlers
+	 */
+	public void skipped() throws SAXException;
+}
@@ -0,0 +1,220 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * List of child elements that can be spilled to a temporary file by a
+ * MemoryBudget with the SPILL policy. Generated types use it instead of an
+ * ArrayList for repeating children.
+ * 
+ * Spilled elements are read back each time they are accessed and have no
+ * parent; changes to them are not saved. They can be read until the task that
+ * parsed them starts a new document. Without a SPILL budget the list behaves
+ * as an ArrayList.
+ * 
+ * @param <E> the type of the elements
+ * @author Lolke B. Dijkstra
+ */
+public class SpillList<E extends ComplexDataType> extends AbstractList<E> implements RandomAccess {
+	/** position of a spilled element in the store. */
+	private static final class Spilled {
+		final long position;
+
+		Spilled(long position) {
+			this.position = position;
+		}
+	}
+
+	private final Class<E> type;
+	/** the elements, or Spilled for spilled elements. */
+	private final ArrayList<Object> items = new ArrayList<>();
+	/** estimated size of each element in memory, as charged to the budget. */
+	private long[] sizes = new long[8];
+	/** the budget the list is registered with (if any). */
+	private MemoryBudget budget = null;
+	/** where the elements are spilled. */
+	private SpillStore store = null;
+	/** the elements before this position are spilled (or not charged). */
+	private int spillFrom = 0;
+	private int spilledCount = 0;
+	/** indicates whether the list is part of a spilled element. */
+	private boolean retired = false;
+
+	/**
+	 * Constructor.
+	 * @param type the type of the elements
+	 */
+	public SpillList(Class<E> type) {
+		assert (type != null);
+		this.type = type;
+	}
+
+	@Override
+	public E get(int index) {
+		Object item = items.get(index);
+		if (item instanceof Spilled) {
+			try {
+				return store.read(((Spilled) item).position, type);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return type.cast(item);
+	}
+
+	@Override
+	public int size() {
+		return items.size();
+	}
+
+	@Override
+	public void add(int index, E element) {
+		long size = charge();
+		items.add(index, element);
+		int n = items.size();
+		if (n > sizes.length) {
+			sizes = Arrays.copyOf(sizes, n * 2);
+		}
+		System.arraycopy(sizes, index, sizes, index + 1, n - 1 - index);
+		sizes[index] = size;
+		if (index < spillFrom) {
+			spillFrom = index;
+		}
+		modCount++;
+	}
+
+	@Override
+	public E set(int index, E element) {
+		E old = get(index);
+		drop(index);
+		items.set(index, element);
+		sizes[index] = charge();
+		if (index < spillFrom) {
+			spillFrom = index;
+		}
+		return old;
+	}
+
+	@Override
+	public E remove(int index) {
+		E old = get(index);
+		removeRange(index, index + 1);
+		return old;
+	}
+
+	/**
+	 * Remove elements without reading the spilled ones back (e.g. clear).
+	 */
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		for (int i = fromIndex; i < toIndex; i++) {
+			drop(i);
+		}
+		items.subList(fromIndex, toIndex).clear();
+		System.arraycopy(sizes, toIndex, sizes, fromIndex, items.size() - fromIndex);
+		if (spillFrom > fromIndex) {
+			spillFrom = Math.max(fromIndex, spillFrom - (toIndex - fromIndex));
+		}
+		modCount++;
+	}
+
+	/**
+	 * Charge an element that is added by the budget that is linking it (if any).
+	 * @return the size charged to the budget
+	 */
+	private long charge() {
+		MemoryBudget linking = MemoryBudget.linking();
+		if (linking == null || linking.getPolicy() != MemoryBudget.Policy.SPILL) {
+			return 0;
+		}
+		if (budget != linking) {
+			budget = linking;
+			linking.register(this);
+		}
+		return linking.linkedSize();
+	}
+
+	/**
+	 * Give the charge of the element at index back to the budget.
+	 * @param index the index of an element that is replaced or removed
+	 */
+	private void drop(int index) {
+		if (items.get(index) instanceof Spilled) {
+			spilledCount--;
+		} else if (sizes[index] != 0) {
+			budget.credit(this, sizes[index]);
+		}
+		sizes[index] = 0;
+	}
+
+	/**
+	 * @return the number of elements that are spilled
+	 */
+	public int getSpilledCount() {
+		return spilledCount;
+	}
+
+	/**
+	 * Spill the oldest elements.
+	 * @param excess the number of bytes to free
+	 * @param store where to write the elements
+	 * @return the number of bytes freed
+	 * @throws IOException write error
+	 */
+	long spill(long excess, SpillStore store) throws IOException {
+		this.store = store;
+		long freed = 0;
+		for (; spillFrom < items.size() && freed < excess; spillFrom++) {
+			Object item = items.get(spillFrom);
+			if (item instanceof Spilled || sizes[spillFrom] == 0) {
+				continue;
+			}
+			items.set(spillFrom, new Spilled(store.write((ComplexDataType) item)));
+			freed += sizes[spillFrom];
+			sizes[spillFrom] = 0;
+			spilledCount++;
+		}
+		return freed;
+	}
+
+	/**
+	 * Called when the element that holds the list is spilled.
+	 */
+	void retire() {
+		retired = true;
+	}
+
+	/**
+	 * @return true if the element that holds the list is spilled
+	 */
+	boolean isRetired() {
+		return retired;
+	}
+}
@@ -0,0 +1,130 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Temporary file that holds spilled elements in the format of the
+ * BinaryEncoder. Each element is written as a stream of its own, preceded by
+ * its length, so it can be read back on its own.
+ * 
+ * @author Lolke B. Dijkstra
+ * @see MemoryBudget
+ */
+final class SpillStore implements Closeable {
+	private final File file;
+	private final RandomAccessFile raf;
+	private final FileChannel channel;
+	private final TypeRegistry registry;
+	private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	private BinaryEncoder encoder = null;
+	/** size of the file. */
+	private long size = 0;
+
+	/**
+	 * Constructor, creates the temporary file.
+	 * @param directory the directory, or null for the default
+	 * @param registry the allocators of the types
+	 * @throws IOException the file cannot be created
+	 */
+	SpillStore(File directory, TypeRegistry registry) throws IOException {
+		this.registry = registry;
+		this.file = File.createTempFile("xml2j-spill", ".bin", directory);
+		this.raf = new RandomAccessFile(file, "rw");
+		this.channel = raf.getChannel();
+	}
+
+	/**
+	 * Write an element and the elements it contains.
+	 * @param element the element
+	 * @return the position of the element
+	 * @throws IOException write error
+	 */
+	synchronized long write(ComplexDataType element) throws IOException {
+		bytes.reset();
+		bytes.write(new byte[4]);
+		if (encoder == null) {
+			encoder = new BinaryEncoder(bytes);
+			encoder.spilling = true;
+		} else {
+			encoder.reset();
+		}
+		encoder.writeElement(element);
+		encoder.flush();
+
+		ByteBuffer b = ByteBuffer.wrap(bytes.toByteArray());
+		b.putInt(0, b.capacity() - 4);
+		long position = size;
+		while (b.hasRemaining()) {
+			channel.write(b, size + b.position());
+		}
+		size += b.capacity();
+		return position;
+	}
+
+	/**
+	 * Read an element.
+	 * @param position the position returned by write
+	 * @param type the type of the element
+	 * @return the element, without parent
+	 * @throws IOException read error
+	 */
+	synchronized <T extends ComplexDataType> T read(long position, Class<T> type) throws IOException {
+		ByteBuffer length = ByteBuffer.allocate(4);
+		readFully(length, position);
+		ByteBuffer b = ByteBuffer.allocate(length.getInt(0));
+		readFully(b, position + 4);
+		return new BinaryDecoder(new ByteArrayInputStream(b.array()), registry).readElement(null, type);
+	}
+
+	/**
+	 * Close and delete the file.
+	 */
+	public synchronized void close() {
+		try {
+			raf.close();
+		} catch (IOException e) {
+			XMLMessageHandler.logger.warn("Could not close {}: {}", file, e.getMessage());
+		}
+		if (!file.delete()) {
+			XMLMessageHandler.logger.warn("Could not delete {}", file);
+		}
+	}
+
+	private void readFully(ByteBuffer b, long position) throws IOException {
+		while (b.hasRemaining()) {
+			if (channel.read(b, position + b.position()) < 0) {
+				throw new EOFException();
+			}
+		}
+	}
+}
@@ -33,4 +33,12 @@ public interface TypeAllocator<T extends ComplexDataType> {
 	 * @return the new object of type T
 	 */
 	T newInstance(String elementName, ComplexDataType parent);
+
+	/**
+	 * Return an instance that is no longer used, so it can be reused by newInstance.
+	 * The default implementation does nothing and leaves the instance to the garbage collector.
+	 * @param instance the instance that is released
+	 */
+	default void release(T instance) {
+	}
 }
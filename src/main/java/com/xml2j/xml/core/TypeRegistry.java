@@ -0,0 +1,55 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps element types to their allocators, so the BinaryDecoder can create
+ * elements without reflection. Generated types register their TypeAllocator.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public final class TypeRegistry {
+	private final ConcurrentHashMap<String, TypeAllocator<?>> allocators = new ConcurrentHashMap<>();
+
+	/**
+	 * Register the allocator of a type.
+	 * @param type the element type
+	 * @param allocator its allocator
+	 * @return this registry
+	 */
+	public <T extends ComplexDataType> TypeRegistry register(Class<T> type, TypeAllocator<T> allocator) {
+		assert (type != null && allocator != null);
+		allocators.put(type.getName(), allocator);
+		return this;
+	}
+
+	/**
+	 * @param typeName the name of the class of the type
+	 * @return the allocator or null if the type is not registered
+	 */
+	public TypeAllocator<?> get(String typeName) {
+		return allocators.get(typeName);
+	}
+}
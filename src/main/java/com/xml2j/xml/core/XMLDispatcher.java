@@ -0,0 +1,208 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+
+
+/**
+ * Table driven dispatch engine for a tree of XMLFragmentHandlers.
+ *
+ * By default each XMLFragmentHandler connects itself to the XMLReader on
+ * activation and reconnects its parent on deactivation. The dispatcher is
+ * the alternative: it is the only ContentHandler the reader ever sees, and it
+ * keeps the active handlers on an explicit stack. Events are routed to the
+ * handler on top of the stack, which looks up its children in a precomputed
+ * table of interned element names.
+ *
+ * The dispatcher is enabled in the runtime properties with
+ * <code>xml2j.dispatch=table</code>. Generated handlers need no changes.
+ *
+ * While an element is skipped ('@skip') the dispatcher ignores the events
+ * up to its end tag, counting only the depth.
+ *
+ * @author Lolke B. Dijkstra
+ */
+public class XMLDispatcher implements SkippingContentHandler {
+	/** initial depth of the handler stack. */
+	private static final int INITIAL_DEPTH = 16;
+
+	/** the active handlers, the root handler is at the bottom. */
+	private XMLFragmentHandler<?>[] stack = new XMLFragmentHandler<?>[INITIAL_DEPTH];
+	/** index of the handler that receives the events. */
+	private int top = 0;
+	/** depth in the skipped element (0 if not skipping). */
+	private int skipDepth = 0;
+
+	/**
+	 * Constructor.
+	 * @param root the handler of the document element
+	 */
+	public XMLDispatcher(XMLFragmentHandler<?> root) {
+		assert (root != null);
+		stack[0] = root;
+		root.setDispatcher(this);
+	}
+
+	/**
+	 * @return the handler of the document element
+	 */
+	public XMLFragmentHandler<?> getRoot() {
+		return stack[0];
+	}
+
+	/**
+	 * @return the handler that currently receives the events
+	 */
+	public XMLFragmentHandler<?> getCurrent() {
+		return stack[top];
+	}
+
+	/**
+	 * Drop all handlers above the root handler.
+	 */
+	public void reset() {
+		while (top > 0) {
+			stack[top--] = null;
+		}
+		skipDepth = 0;
+	}
+
+	/**
+	 * Ignore the events up to the end tag of the element that has just started.
+	 */
+	void skip() {
+		skipDepth = 1;
+	}
+
+	/** {@inheritDoc} */
+	public boolean isSkipping() {
+		return skipDepth > 0;
+	}
+
+	/** {@inheritDoc} */
+	public void skipped() {
+		skipDepth = 0;
+	}
+
+	/**
+	 * Route events to the handler.
+	 * @param handler the activated handler
+	 */
+	void push(XMLFragmentHandler<?> handler) {
+		if (++top == stack.length) {
+			XMLFragmentHandler<?>[] grown = new XMLFragmentHandler<?>[stack.length * 2];
+			System.arraycopy(stack, 0, grown, 0, stack.length);
+			stack = grown;
+		}
+		stack[top] = handler;
+	}
+
+	/**
+	 * Route events back to the parent of the handler.
+	 * @param handler the deactivated handler
+	 */
+	void pop(XMLFragmentHandler<?> handler) {
+		assert (stack[top] == handler);
+		if (top > 0) {
+			stack[top--] = null;
+		}
+	}
+
+	/** {@inheritDoc} */
+	public void setDocumentLocator(Locator locator) {
+		stack[top].setDocumentLocator(locator);
+	}
+
+	/** {@inheritDoc} */
+	public void startDocument() throws SAXException {
+		stack[top].startDocument();
+	}
+
+	/** {@inheritDoc} */
+	public void endDocument() throws SAXException {
+		stack[top].endDocument();
+	}
+
+	/** {@inheritDoc} */
+	public void startPrefixMapping(String prefix, String uri) throws SAXException {
+		if (skipDepth > 0)
+			return;
+		stack[top].startPrefixMapping(prefix, uri);
+	}
+
+	/** {@inheritDoc} */
+	public void endPrefixMapping(String prefix) throws SAXException {
+		if (skipDepth > 0)
+			return;
+		stack[top].endPrefixMapping(prefix);
+	}
+
+	/** {@inheritDoc} */
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		if (skipDepth > 0) {
+			skipDepth++;
+			return;
+		}
+		stack[top].startElement(uri, localName, qName, atts);
+	}
+
+	/** {@inheritDoc} */
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		if (skipDepth > 0) {
+			skipDepth--;
+			return;
+		}
+		stack[top].endElement(uri, localName, qName);
+	}
+
+	/** {@inheritDoc} */
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		if (skipDepth > 0)
+			return;
+		stack[top].characters(ch, start, length);
+	}
+
+	/** {@inheritDoc} */
+	public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+		if (skipDepth > 0)
+			return;
+		stack[top].ignorableWhitespace(ch, start, length);
+	}
+
+	/** {@inheritDoc} */
+	public void processingInstruction(String target, String data) throws SAXException {
+		if (skipDepth > 0)
+			return;
+		stack[top].processingInstruction(target, data);
+	}
+
+	/** {@inheritDoc} */
+	public void skippedEntity(String name) throws SAXException {
+		if (skipDepth > 0)
+			return;
+		stack[top].skippedEntity(name);
+	}
+}
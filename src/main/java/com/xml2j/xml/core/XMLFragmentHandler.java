@@ -23,6 +23,10 @@ SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 Project root: https://sourceforge.net/projects/xml2j/
 ********************************************************************************/
 import java.io.CharArrayWriter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -34,6 +38,8 @@ import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.DefaultHandler;
 
+import com.xml2j.util.StringCache;
+import com.xml2j.util.ValueParser;
 import com.xml2j.xml.parser.ParserTask;
 
 
@@ -72,9 +78,7 @@ public abstract class XMLFragmentHandler<T extends ComplexDataType> extends
 	 * @return true if needs processing
 	 */
 	protected boolean doProcess(String childName) {
-		String value = application.getConfiguration().getProperty(
-				getPath() + "/" + childName + PROCESS);
-		return value == null ? false : !value.equalsIgnoreCase(FALSE);
+		return getSettings(childName).isProcess();
 	}
 
 	/**
@@ -98,9 +102,27 @@ public abstract class XMLFragmentHandler<T extends ComplexDataType> extends
 	 * @return true if needs processing
 	 */
 	protected boolean doLink(String childName) { 
-		String value = application.getConfiguration().getProperty(
-				getPath() + "/" + childName + DETACH);
-		return value == null ? true : value.equalsIgnoreCase(FALSE);
+		return !getSettings(childName).isDetach();
+	}
+
+	/**
+	 * Get the configured settings for a child element.
+	 * 
+	 * @param childName
+	 *            The name of the XML Element
+	 * @return the settings resolved from the path table
+	 */
+	protected PathTable.Entry getSettings(String childName) {
+		return application.getConfiguration().getPathTable().resolve(path + "/" + childName);
+	}
+
+	/**
+	 * Get the configured settings for the element handled by this handler.
+	 * 
+	 * @return the settings resolved from the path table
+	 */
+	protected PathTable.Entry getSettings() {
+		return settings;
 	}
 	
 	/**
@@ -108,10 +130,7 @@ public abstract class XMLFragmentHandler<T extends ComplexDataType> extends
 	 * @return the XPath path relative to document root
 	 */
 	public String getPath() {
-		if (this.getParent() != null) {
-			return this.getParent().getPath() + "/" + this.getXMLElementName();
-		}
-		return this.getXMLElementName();
+		return path;
 	}
 
 	/**
@@ -228,13 +247,17 @@ public abstract class XMLFragmentHandler<T extends ComplexDataType> extends
 	}
 
 	/** buffer for storing content. */
-	private CharArrayWriter contents = new CharArrayWriter();
+	private final ContentBuffer contents = new ContentBuffer();
 	/** XML reader. */
 	private XMLReader reader = null;
 	/** parent handler (null indicates handler is root). */
 	private XMLFragmentHandler<?> parent = null;
 	/** name of element that is handled. */
 	private String elementName = null;
+	/** the path of the element, relative to document root. */
+	private final String path;
+	/** the settings configured for the path. */
+	private final PathTable.Entry settings;
 	/** allocator for type T. */
 	private TypeAllocator<T> dataAlloctor = null;
 	/** the setter for attaching data to parent. */
@@ -242,13 +265,34 @@ public abstract class XMLFragmentHandler<T extends ComplexDataType> extends
 	/** data of type T. */
 	private T data = null;
 	/** handlers for children. */
-	private Map<String, HandlerProxy<?>> handlers = new HashMap<>();
+	private final ChildTable handlers = new ChildTable();
+	/** the dispatcher that routes the events (null if the reader routes the events). */
+	private XMLDispatcher dispatcher = null;
 	/** indicates whether processing is active for this handler instance. */
 	private boolean doProcess = false;
+	/** indicates whether the content is passed to the data without creating a String. */
+	private boolean lazyContent = false;
 	/** indicates whether this is the root handler */
 	private boolean isRoot = false;
 	/** indicates whether this is the first time this handler is entered */
 	private boolean isFirst = true;
+	/** the metrics of the task (null if metrics are disabled). */
+	private final ParserMetrics metrics;
+	/** the element counters of the path of this handler (null if metrics are disabled). */
+	private final ParserMetrics.PathCounter elementCounter;
+	/** the usage of the memory budget when the handler was entered. */
+	private long budgetMark = 0;
+	/** shares repeated values of the path (null if '@dedup' is not set). */
+	private final StringCache dedup;
+	/** hits and misses of dedup passed to the metrics so far. */
+	private long dedupHits = 0;
+	private long dedupMisses = 0;
+	/** indicates whether some path in the configuration sets '@skip'. */
+	private final boolean skipUsed;
+	/** '@skip' per child element name (created on first use). */
+	private Map<String, Boolean> skips = null;
+	/** ignores skipped elements if the reader routes the events (created on first use). */
+	private XMLSkipper skipper = null;
 
 	/**
 	 * Create new data object of type T.
@@ -276,13 +320,27 @@ public abstract class XMLFragmentHandler<T extends ComplexDataType> extends
 		getContents().reset();
 
 		// reset children..
-		for (HandlerProxy<?> h : handlers.values()) {
+		for (int i = 0; i != handlers.size(); i++) {
+			HandlerProxy<?> h = handlers.get(i);
 			if (h.hasHandler()) {
 				h.getHandler().reset();
 			}
 		}
 	}
 
+	/**
+	 * Prepare the handler tree for a new document. The data of the previous
+	 * document is dropped and the next start tag is taken for the root element.
+	 */
+	void restart() {
+		isFirst = true;
+		MemoryBudget budget = application.getMemoryBudget();
+		if (budget != null) {
+			budget.reset();
+		}
+		reset();
+	}
+
 	/**
 	 * @return XMLReader for this XMLFragment
 	 */
@@ -290,6 +348,24 @@ public abstract class XMLFragmentHandler<T extends ComplexDataType> extends
 		return reader;
 	}
 
+	/**
+	 * @return the application context this handler belongs to
+	 */
+	public ParserTask getApplication() {
+		return application;
+	}
+
+	/**
+	 * Connect this handler to a dispatcher. Children connect to the dispatcher of
+	 * their parent on activation.
+	 * 
+	 * @param dispatcher
+	 *            the dispatcher or null to let the reader route the events
+	 */
+	void setDispatcher(XMLDispatcher dispatcher) {
+		this.dispatcher = dispatcher;
+	}
+
 	/**
 	 * @return Parent of this content handler
 	 */
@@ -334,11 +410,72 @@ public abstract class XMLFragmentHandler<T extends ComplexDataType> extends
 		this.reader = reader;
 		this.parent = parentHandler;
 		this.elementName = elementName;
-		this.dataAlloctor = dataAllocator;
+		this.path = parent == null ? elementName : parent.getPath() + "/" + elementName;
+		this.settings = application.getConfiguration().getPathTable().resolve(path);
+		this.dataAlloctor = settings.isDetach() && settings.isSet(PathTable.RECYCLE)
+				? new RecyclingTypeAllocator<>(dataAllocator)
+				: dataAllocator;
 		this.dataSetter = dataSetter;
 		this.data = newDataObject();
 		this.doProcess = doProcess;
 		this.isRoot = (parent == null);
+		this.lazyContent = CONTENT_LAZY.equalsIgnoreCase(application.getConfiguration().getProperty(CONTENT));
+		this.metrics = ParserMetrics.ENABLED ? application.getMetrics() : null;
+		this.elementCounter = metrics != null ? metrics.pathCounter(path) : null;
+		this.dedup = settings.isSet(PathTable.DEDUP) ? newStringCache(settings.getSetting(PathTable.DEDUP)) : null;
+		this.skipUsed = application.getConfiguration().getPathTable().isUsed(PathTable.SKIP);
+	}
+
+	/**
+	 * Finds out whether a child element is skipped. The events of a skipped
+	 * element and its descendants are ignored up to its end tag, so it is not
+	 * handled at all. In the configuration file the property '@skip' is used
+	 * to skip an element.
+	 * 
+	 * @param childName
+	 *            the name of the child element
+	 * @return true if '@skip' is set for the child
+	 */
+	protected boolean isSkipped(String childName) {
+		if (!skipUsed)
+			return false;
+		if (skips == null) {
+			skips = new HashMap<>();
+		}
+		Boolean skip = skips.get(childName);
+		if (skip == null) {
+			skip = getSettings(childName).isSet(PathTable.SKIP);
+			skips.put(childName, skip);
+		}
+		return skip;
+	}
+
+	/**
+	 * Ignore the events up to the end tag of the element that has just started.
+	 */
+	private void skip() {
+		contents.reset();
+		if (dispatcher != null) {
+			dispatcher.skip();
+		} else {
+			if (skipper == null) {
+				skipper = new XMLSkipper(reader);
+			}
+			skipper.skip(this);
+		}
+	}
+
+	/**
+	 * Create the cache for '@dedup'.
+	 * @param setting "true" or the number of entries
+	 * @return the cache
+	 */
+	private static StringCache newStringCache(String setting) {
+		try {
+			return new StringCache(Math.max(Integer.parseInt(setting.trim()), 1));
+		} catch (NumberFormatException e) {
+			return new StringCache();
+		}
 	}
 
 	/** {@inheritDoc} */
@@ -348,14 +485,29 @@ public abstract class XMLFragmentHandler<T extends ComplexDataType> extends
 
 	/** activates this handler, so new events are routed here. */
 	public void activate() {
-		reader.setContentHandler(this);
+		if (parent != null) {
+			dispatcher = parent.dispatcher;
+		}
+		if (dispatcher != null) {
+			dispatcher.push(this);
+		} else {
+			reader.setContentHandler(this);
+		}
 		reset();
+		MemoryBudget budget = application.getMemoryBudget();
+		if (budget != null) {
+			budgetMark = budget.mark();
+		}
 	}
 
 	/** deactivates this handler and passes control back to parent. */
 	public void deactivate() {
 		if (getParent() != null) {
-			reader.setContentHandler(getParent());
+			if (dispatcher != null) {
+				dispatcher.pop(this);
+			} else {
+				reader.setContentHandler(getParent());
+			}
 		}
 	}
 
@@ -367,10 +519,85 @@ public abstract class XMLFragmentHandler<T extends ComplexDataType> extends
 	}
 
 	/**
-	 * @return the value (String) of the content.
+	 * @return the value (String) of the content, shared with equal values if
+	 *         '@dedup' is set for the path.
 	 */
 	public String getValue() {
-		return contents.toString();
+		return dedup != null ? contents.toString(dedup) : contents.toString();
+	}
+
+	/**
+	 * Parse the content as xs:int, without creating a String.
+	 * @return the value
+	 * @throws NumberFormatException the content is not an int
+	 */
+	public int getIntValue() {
+		return ValueParser.parseInt(contents);
+	}
+
+	/**
+	 * Parse the content as xs:long, without creating a String.
+	 * @return the value
+	 * @throws NumberFormatException the content is not a long
+	 */
+	public long getLongValue() {
+		return ValueParser.parseLong(contents);
+	}
+
+	/**
+	 * Parse the content as xs:double, without creating a String.
+	 * @return the value
+	 * @throws NumberFormatException the content is not a double
+	 */
+	public double getDoubleValue() {
+		return ValueParser.parseDouble(contents);
+	}
+
+	/**
+	 * Parse the content as xs:boolean, without creating a String.
+	 * @return the value
+	 * @throws IllegalArgumentException the content is not a boolean
+	 */
+	public boolean getBooleanValue() {
+		return ValueParser.parseBoolean(contents);
+	}
+
+	/**
+	 * Parse the content as xs:decimal, without creating a String.
+	 * @return the value
+	 * @throws NumberFormatException the content is not a decimal
+	 */
+	public BigDecimal getDecimalValue() {
+		return ValueParser.parseDecimal(contents);
+	}
+
+	/**
+	 * Parse the content as xs:date, without creating a String.
+	 * @return the value
+	 * @throws DateTimeParseException the content is not a date
+	 */
+	public LocalDate getDateValue() {
+		return ValueParser.parseDate(contents);
+	}
+
+	/**
+	 * Parse the content as xs:dateTime, without creating a String.
+	 * @return the value (in UTC if the content has no timezone)
+	 * @throws DateTimeParseException the content is not a dateTime
+	 */
+	public OffsetDateTime getDateTimeValue() {
+		return ValueParser.parseDateTime(contents);
+	}
+
+	/**
+	 * Get the content without leading and trailing whitespace, without creating
+	 * a String. The characters are not copied: the sequence remains valid after
+	 * the handler continues, but is not updated by it.
+	 * 
+	 * @return the trimmed content
+	 */
+	public CharSequence getTrimmedValue() {
+		return contents.trimmed();
 	}
 
 	/**
@@ -416,7 +643,7 @@ public abstract class XMLFragmentHandler<T extends ComplexDataType> extends
 	 *            for the child handler
 	 */
 	protected void registerHandler(HandlerProxy<?> proxy) {
-		handlers.put(proxy.elementName, proxy);
+		handlers.put(proxy);
 	}
 
 	/** {@inheritDoc} */
@@ -433,9 +660,18 @@ public abstract class XMLFragmentHandler<T extends ComplexDataType> extends
 		 * 
 		 * else get the registered child handler proxy
 		 */
-		HandlerProxy<?> proxy = isRoot && isFirst ? null : handlers.get(localName);
+		boolean entered = isRoot && isFirst;
 		isFirst = false;
 
+		/*
+		 * ignore the element if it is skipped ('@skip')
+		 */
+		if (!entered && isSkipped(localName)) {
+			skip();
+			return;
+		}
+		HandlerProxy<?> proxy = entered ? null : handlers.get(localName);
+
 		/*  
 		 * pass control to the child handler
 		 */
@@ -464,12 +700,34 @@ public abstract class XMLFragmentHandler<T extends ComplexDataType> extends
 		// return control to parent handler..
 		this.deactivate();
 
+		if (ParserMetrics.ENABLED && elementCounter != null) {
+			metrics.element(elementCounter);
+		}
+
 		// get content of this item..
-		getData().setContent(this.getValue());
+		if (dedup != null) {
+			getData().setContent(contents.trimmed(dedup));
+			if (ParserMetrics.ENABLED && metrics != null) {
+				metrics.deduplicated(dedup.getHits() - dedupHits, dedup.getMisses() - dedupMisses);
+				dedupHits = dedup.getHits();
+				dedupMisses = dedup.getMisses();
+			}
+		} else if (lazyContent) {
+			getData().setContent(contents.trimmed());
+		} else {
+			getData().setContent(this.getValue());
+		}
 
 		// attach data to parent (if parent data setter is found)..
 		DataSetter setter = getParentDataSetter();
-		if (setter != null) {
+		MemoryBudget budget = application.getMemoryBudget();
+		if (budget != null && !isRoot) {
+			if (setter != null) {
+				budget.link(setter, getData(), budgetMark, path);
+			} else {
+				budget.release(budgetMark);
+			}
+		} else if (setter != null) {
 			setter.set(getData());
 		}
 
@@ -490,7 +748,8 @@ public abstract class XMLFragmentHandler<T extends ComplexDataType> extends
 		T element = getData();
 		int sz = atts.getLength();
 		for (int i = 0; i != sz; i++) {
-			element.setAttr(atts.getLocalName(i), atts.getValue(i));
+			String value = atts.getValue(i);
+			element.setAttr(atts.getLocalName(i), dedup != null ? dedup.get(value) : value);
 		}
 	}
 	
@@ -517,7 +776,13 @@ public abstract class XMLFragmentHandler<T extends ComplexDataType> extends
 			if (processor == null) {
 				throw new ProcessorException("No processor set!");
 			}
-			processor.process(evt, this.data);
+			if (ParserMetrics.ENABLED && metrics != null) {
+				long start = System.nanoTime();
+				processor.process(evt, this.data);
+				metrics.processed(evt, System.nanoTime() - start);
+			} else {
+				processor.process(evt, this.data);
+			}
 		}
 	}
 }
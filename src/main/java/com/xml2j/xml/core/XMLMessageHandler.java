@@ -24,18 +24,18 @@ Project root: https://sourceforge.net/projects/xml2j/
 import java.io.FileInputStream;
 import java.io.IOException;
 
-import javax.xml.XMLConstants;
 import javax.xml.transform.Source;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 
+import com.xml2j.util.CountingInputStream;
 import com.xml2j.xml.parser.ParserTask;
 
 /**
@@ -60,16 +60,24 @@ public abstract class XMLMessageHandler<T extends ComplexDataType> implements Me
 	/** The InputSource that embeds the XML data. */
 	private InputSource inputSource = null;
 
-	/** SchemaFactory capable of understanding WXS schemas. */
-	private final SchemaFactory schemaFactory = SchemaFactory
-			.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+	/** WXS Schema, compiled by the process-wide schema cache. */
+	private SchemaCache.CachedSchema schema = null;
 
-	/** WXS Schema validator. */
-	private Validator validator = null;
+	/** validates the events ahead of the handlers (null if not validating). */
+	private ValidatorHandler validatorHandler = null;
 
 	/** The XML Handler class. */
 	private XMLFragmentHandler<?> handler;
 
+	/** The dispatcher, if the events are routed through a dispatcher. */
+	private XMLDispatcher dispatcher = null;
+
+	/** indicates whether the dispatcher was configured (rather than enabled for validation). */
+	private boolean dispatchConfigured = false;
+
+	/** the schema the validator handler was created for. */
+	private SchemaCache.CachedSchema validatorSchema = null;
+
 	/**
 	 * Base constructor.
 	 * 
@@ -82,7 +90,22 @@ public abstract class XMLMessageHandler<T extends ComplexDataType> implements Me
 	public XMLMessageHandler(XMLReader reader, XMLFragmentHandler<?> handler) {
 		this.reader = reader;
 		this.handler = handler;
-		reader.setContentHandler(handler);
+		String dispatch = handler.getApplication().getConfiguration().getProperty(DISPATCH);
+		if (DISPATCH_TABLE.equalsIgnoreCase(dispatch)) {
+			dispatcher = new XMLDispatcher(handler);
+			dispatchConfigured = true;
+		}
+		reader.setContentHandler(getContentHandler());
+	}
+
+	/**
+	 * @return The ContentHandler that receives the events from the reader.
+	 */
+	protected ContentHandler getContentHandler() {
+		if (validatorHandler != null) {
+			return validatorHandler;
+		}
+		return dispatcher != null ? dispatcher : handler;
 	}
 
 	/**
@@ -103,9 +126,7 @@ public abstract class XMLMessageHandler<T extends ComplexDataType> implements Me
 	 * @return true if needs processing
 	 */
 	static protected boolean doProcess(String childName, ParserTask context) {
-		String value = context.getConfiguration().getProperty(
-				childName + PROCESS);
-		return value == null ? false : !value.equalsIgnoreCase(FALSE);
+		return context.getConfiguration().getPathTable().resolve(childName).isProcess();
 	}
 	
 	
@@ -145,11 +166,52 @@ public abstract class XMLMessageHandler<T extends ComplexDataType> implements Me
 			logger.error(msg[MSG_NO_INPUT]);
 			throw new ParserConfigurationException(msg[MSG_NO_INPUT]);
 		}
-		reader.parse(inputSource);
+		connect();
+		ParserMetrics metrics = ParserMetrics.ENABLED ? handler.getApplication().getMetrics() : null;
+		if (metrics == null) {
+			reader.parse(inputSource);
+			return;
+		}
+
+		CountingInputStream counter = null;
+		InputSource input = inputSource;
+		if (input.getByteStream() != null) {
+			counter = new CountingInputStream(input.getByteStream());
+			input = new InputSource(counter);
+			input.setSystemId(inputSource.getSystemId());
+			input.setPublicId(inputSource.getPublicId());
+			input.setEncoding(inputSource.getEncoding());
+		}
+		boolean completed = false;
+		long start = System.nanoTime();
+		try {
+			reader.parse(input);
+			completed = true;
+		} finally {
+			metrics.parsed(System.nanoTime() - start, counter != null ? counter.getCount() : 0, completed);
+		}
+	}
+
+	/**
+	 * Connects the handlers to the XMLReader, so they receive the events of a
+	 * new document. The data of the previous document is dropped, so the
+	 * handlers can be reused for any number of documents.
+	 */
+	@Override
+	public void connect() {
+		handler.restart();
+		if (dispatcher != null) {
+			dispatcher.reset();
+		}
+		if (validatorHandler != null) {
+			validatorHandler.setErrorHandler(reader.getErrorHandler());
+		}
+		reader.setContentHandler(getContentHandler());
 	}
 
 	/**
 	 * Set the WXS Schema (XSD) file for validation.
+	 * The schema is compiled once per process, see SchemaCache.
 	 * 
 	 * @param schemaFile
 	 *            the WXS Schema file (XSD)
@@ -158,12 +220,15 @@ public abstract class XMLMessageHandler<T extends ComplexDataType> implements Me
 	 */
 	@Override
 	public void setSchema(Source schemaFile) throws SAXException {
-		Schema schema = schemaFactory.newSchema(schemaFile);
-		validator = schema.newValidator();
+		schema = SchemaCache.getInstance().get(schemaFile);
+		if (validatorHandler != null) {
+			setValidating(true);
+		}
 	}
 
 	/**
 	 * Set the WXS Schema (XSD) files for validation.
+	 * The schema is compiled once per process, see SchemaCache.
 	 * 
 	 * @param schemaFiles
 	 *            the WXS Schema files (XSD)
@@ -172,8 +237,50 @@ public abstract class XMLMessageHandler<T extends ComplexDataType> implements Me
 	 */
 	@Override
 	public void setSchema(Source[] schemaFiles) throws SAXException {
-		Schema schema = schemaFactory.newSchema(schemaFiles);
-		validator = schema.newValidator();
+		schema = SchemaCache.getInstance().get(schemaFiles);
+		if (validatorHandler != null) {
+			setValidating(true);
+		}
+	}
+
+	/**
+	 * Validate documents against the schema while they are processed, so the
+	 * input is read only once. The events pass a ValidatorHandler before they
+	 * reach the handlers, which requires the dispatcher: it is enabled if it
+	 * was not configured, and disabled again when validation is turned off.
+	 * Validation errors are reported to the ErrorHandler of the reader.
+	 * 
+	 * A validation error aborts the parse. Note that the elements before the
+	 * error are processed.
+	 * 
+	 * @param validating
+	 *            true to validate, false to stop validating
+	 */
+	@Override
+	public void setValidating(boolean validating) {
+		if (!validating) {
+			validatorHandler = null;
+			validatorSchema = null;
+			if (!dispatchConfigured && dispatcher != null) {
+				dispatcher = null;
+				handler.setDispatcher(null);
+			}
+		} else {
+			if (schema == null) {
+				logger.error(msg[MSG_NO_SCHEMA]);
+				throw new ParserConfigurationException(msg[MSG_NO_SCHEMA]);
+			}
+			if (dispatcher == null) {
+				dispatcher = new XMLDispatcher(handler);
+			}
+			if (validatorSchema != schema) {
+				validatorHandler = schema.newValidatorHandler();
+				validatorSchema = schema;
+			}
+			validatorHandler.setErrorHandler(reader.getErrorHandler());
+			validatorHandler.setContentHandler(dispatcher);
+		}
+		reader.setContentHandler(getContentHandler());
 	}
 
 	/**
@@ -188,11 +295,16 @@ public abstract class XMLMessageHandler<T extends ComplexDataType> implements Me
 	 */
 	@Override
 	public void validate(Source xml) throws SAXException, IOException {
-		if (validator == null) {
+		if (schema == null) {
 			logger.error(msg[MSG_NO_SCHEMA]);
 			throw new RuntimeException(msg[MSG_NO_SCHEMA]);
 		}
-		validator.validate(xml);
+		Validator validator = schema.acquire();
+		try {
+			validator.validate(xml);
+		} finally {
+			schema.release(validator);
+		}
 	}
 
 	/**
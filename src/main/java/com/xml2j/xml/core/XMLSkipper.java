@@ -0,0 +1,87 @@
+package com.xml2j.xml.core;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Ignores the events of a skipped element, when the handlers connect
+ * themselves to the XMLReader. The skipper takes the place of the handler
+ * until the end tag of the element and only counts the depth.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+final class XMLSkipper extends DefaultHandler implements SkippingContentHandler {
+	private final XMLReader reader;
+	/** the handler that receives the events after the element. */
+	private ContentHandler owner = null;
+	/** depth in the skipped element (0 if not skipping). */
+	private int depth = 0;
+
+	/**
+	 * Constructor.
+	 * @param reader the reader
+	 */
+	XMLSkipper(XMLReader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Skip the element that has just started.
+	 * @param owner the handler that receives the events after the element
+	 */
+	void skip(ContentHandler owner) {
+		this.owner = owner;
+		this.depth = 1;
+		reader.setContentHandler(this);
+	}
+
+	public boolean isSkipping() {
+		return depth > 0;
+	}
+
+	public void skipped() {
+		depth = 0;
+		resume();
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) {
+		depth++;
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) {
+		if (--depth == 0) {
+			resume();
+		}
+	}
+
+	private void resume() {
+		reader.setContentHandler(owner);
+		owner = null;
+	}
+}
@@ -0,0 +1,116 @@
+package com.xml2j.xml.parser;
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.nio.ByteBuffer;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import com.fasterxml.aalto.AsyncByteBufferFeeder;
+import com.fasterxml.aalto.AsyncXMLInputFactory;
+import com.fasterxml.aalto.AsyncXMLStreamReader;
+import com.fasterxml.aalto.stax.InputFactoryImpl;
+
+/**
+ * Non-blocking, incremental parse of a document that arrives in chunks.
+ * 
+ * Each chunk is tokenized as far as possible and the resulting events are
+ * delivered to the handler tree before feed returns, so no thread is blocked
+ * while waiting for the next chunk. The feeder uses the asynchronous parser
+ * of Aalto, which is an optional dependency of this library.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+class AsyncFeeder {
+	/** the factory is thread-safe once configured. */
+	private static final AsyncXMLInputFactory factory = new InputFactoryImpl();
+
+	/** the non-blocking parser. */
+	private final AsyncXMLStreamReader<AsyncByteBufferFeeder> stream;
+	/** delivers the events to the handler tree. */
+	private final StaxEventBridge bridge;
+	/** indicates whether the end of the document was delivered. */
+	private boolean done = false;
+
+	/**
+	 * Constructor.
+	 * @param target the reader whose ContentHandler receives the events
+	 */
+	AsyncFeeder(XMLReader target) {
+		this.stream = factory.createAsyncForByteBuffer();
+		this.bridge = new StaxEventBridge(stream, target);
+	}
+
+	/**
+	 * Parse the next chunk of the document.
+	 * @param input the chunk, the buffer is fully consumed
+	 * @throws SAXException error reported by the handlers or the parser
+	 */
+	void feed(ByteBuffer input) throws SAXException {
+		if (done) {
+			throw new SAXException("Input fed after end of document.");
+		}
+		try {
+			stream.getInputFeeder().feedInput(input);
+			drain();
+		} catch (XMLStreamException e) {
+			throw bridge.fatal(e);
+		}
+	}
+
+	/**
+	 * Signal the end of the input and deliver the remaining events.
+	 * @throws SAXException error reported by the handlers or the parser, or the document is incomplete
+	 */
+	void endOfInput() throws SAXException {
+		try {
+			stream.getInputFeeder().endOfInput();
+			drain();
+			if (!done) {
+				throw bridge.fatal(new XMLStreamException("Unexpected end of input.", stream.getLocation()));
+			}
+			stream.close();
+		} catch (XMLStreamException e) {
+			throw bridge.fatal(e);
+		}
+	}
+
+	/**
+	 * @return true if the end of the document was delivered
+	 */
+	boolean isDone() {
+		return done;
+	}
+
+	private void drain() throws SAXException, XMLStreamException {
+		bridge.begin();
+		while (!done && stream.hasNext()) {
+			int event = stream.next();
+			if (event == AsyncXMLStreamReader.EVENT_INCOMPLETE)
+				break;
+			done = !bridge.deliver(event);
+		}
+	}
+}
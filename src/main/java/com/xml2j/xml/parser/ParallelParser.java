@@ -0,0 +1,314 @@
+package com.xml2j.xml.parser;
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import com.xml2j.xml.core.ComplexDataType;
+import com.xml2j.xml.core.FlushableMessageProcessor;
+import com.xml2j.xml.core.MessageProcessor;
+import com.xml2j.xml.core.ParserConfigurationException;
+import com.xml2j.xml.core.ProcessorException;
+import com.xml2j.xml.core.XMLEvent;
+
+/**
+ * Parses a single large document on multiple cores.
+ * 
+ * The document must consist of a long run of record elements that are
+ * configured with '@detach'. The file is cut into ranges between records
+ * and each range is parsed by its own ParserTask, in its own thread. Each
+ * range is preceded by the part of the document before the first record
+ * and followed by the part after the last record, so the enclosing elements,
+ * their attributes and the namespace declarations are the same as in the
+ * original document.
+ * 
+ * Note that everything before the first record and after the last record is
+ * parsed for every range. Only the task of the first range passes those
+ * elements to the processor; the other tasks pass only the records and their
+ * descendants. The records are processed concurrently and out of order, so
+ * the processor must be thread-safe.
+ * 
+ * The tasks are created by the factory for a single parse or stream, and are
+ * discarded when it completes or when the stream is closed.
+ * 
+ * @author Lolke B. Dijkstra
+ * @see RecordScanner
+ */
+public class ParallelParser {
+	static final Logger logger = LoggerFactory.getLogger(ParallelParser.class);
+
+	/** creates a task per range. */
+	private final ParserTaskFactory factory;
+	/** the number of ranges parsed at the same time. */
+	private final int parallelism;
+
+	/**
+	 * Constructor.
+	 * @param factory creates a task per range
+	 * @param parallelism the number of ranges parsed at the same time
+	 */
+	public ParallelParser(ParserTaskFactory factory, int parallelism) {
+		assert (factory != null && parallelism > 0);
+		this.factory = factory;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Parse the document.
+	 * @param file the document
+	 * @param recordPath the path of the records (e.g. "root/items/item")
+	 * @param processor the processor, shared by all tasks
+	 * @throws IOException the document cannot be read
+	 * @throws SAXException error reported by the parser or the processor
+	 */
+	public void parse(Path file, String recordPath, MessageProcessor processor) throws IOException, SAXException {
+		parse(file, recordPath, recordPath.substring(recordPath.lastIndexOf('/') + 1), processor);
+	}
+
+	/**
+	 * Parse the document.
+	 * @param file the document
+	 * @param recordPath the path of the records (e.g. "root/items/item")
+	 * @param recordName the name of the record element as it appears in the document (e.g. "ns:item")
+	 * @param processor the processor, shared by all tasks
+	 * @throws IOException the document cannot be read
+	 * @throws SAXException error reported by the parser or the processor
+	 */
+	public void parse(Path file, String recordPath, String recordName, MessageProcessor processor) throws IOException, SAXException {
+		assert (file != null && recordPath != null && recordName != null && processor != null);
+
+		ParserTask first = factory.create();
+		if (!first.getConfiguration().getPathTable().resolve(recordPath).isDetach()) {
+			first.discard();
+			throw new ParserConfigurationException("Cannot split document: " + recordPath + " is not detached.");
+		}
+
+		List<ParserTask> tasks = new ArrayList<>();
+		tasks.add(first);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			RecordScanner scanner = new RecordScanner(channel, recordName);
+			if (!scanner.hasRecords()) {
+				first.prepareStart(file, processor);
+				first.processXML();
+				return;
+			}
+
+			long[] bounds = scanner.split(parallelism);
+			if (logger.isDebugEnabled())
+				logger.debug("Parsing {} in {} ranges.", file, bounds.length - 1);
+
+			String systemId = file.toUri().toString();
+			ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, bounds.length - 1));
+			try {
+				List<Future<Void>> results = new ArrayList<>();
+				for (int i = 0; i != bounds.length - 1; i++) {
+					ParserTask task = i == 0 ? first : factory.create();
+					if (task != first) {
+						tasks.add(task);
+					}
+					InputSource input = new InputSource(scanner.open(bounds[i], bounds[i + 1]));
+					input.setSystemId(systemId);
+					task.prepareStart(input, i == 0 ? processor : new RecordFilter(recordPath, processor));
+					results.add(executor.submit(() -> {
+						task.processXML();
+						return null;
+					}));
+				}
+				await(results);
+			} finally {
+				executor.shutdownNow();
+			}
+		} finally {
+			for (ParserTask task : tasks) {
+				task.discard();
+			}
+		}
+	}
+
+	/**
+	 * Stream the records of the document. The stream is parsed lazily and it
+	 * is split at record boundaries, so a parallel stream parses parts of the
+	 * document on multiple cores. The stream must be closed.
+	 * @param file the document
+	 * @param recordPath the path of the records (e.g. "root/items/item")
+	 * @param type the type of the records
+	 * @return the records
+	 * @throws IOException the document cannot be read
+	 * @throws SAXException the configuration cannot be loaded
+	 */
+	public <T extends ComplexDataType> Stream<T> stream(Path file, String recordPath, Class<T> type) throws IOException, SAXException {
+		return stream(file, recordPath, recordPath.substring(recordPath.lastIndexOf('/') + 1), type);
+	}
+
+	/**
+	 * Stream the records of the document. The stream is parsed lazily and it
+	 * is split at record boundaries, so a parallel stream parses parts of the
+	 * document on multiple cores. The stream must be closed.
+	 * @param file the document
+	 * @param recordPath the path of the records (e.g. "root/items/item")
+	 * @param recordName the name of the record element as it appears in the document (e.g. "ns:item")
+	 * @param type the type of the records
+	 * @return the records
+	 * @throws IOException the document cannot be read
+	 * @throws SAXException the configuration cannot be loaded
+	 */
+	public <T extends ComplexDataType> Stream<T> stream(Path file, String recordPath, String recordName, Class<T> type) throws IOException, SAXException {
+		assert (file != null && recordPath != null && recordName != null && type != null);
+
+		ParserTask first = factory.create();
+		if (!first.getConfiguration().getPathTable().resolve(recordPath).isDetach()) {
+			first.discard();
+			throw new ParserConfigurationException("Cannot split document: " + recordPath + " is not detached.");
+		}
+
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			RecordScanner scanner = new RecordScanner(channel, recordName);
+			Stream<T> records;
+			if (scanner.hasRecords()) {
+				RecordSpliterator<T> spliterator = new RecordSpliterator<>(factory, first, scanner, scanner.first(),
+						scanner.trailer(), file.toUri().toString(), type);
+				records = StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+			} else {
+				records = first.stream(file, type).onClose(first::discard);
+			}
+			return records.onClose(() -> {
+				try {
+					channel.close();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (IOException | RuntimeException e) {
+			first.discard();
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Passes only the records and their descendants to the processor, so the
+	 * elements around the records, which are parsed for every range, are
+	 * processed once.
+	 */
+	private static final class RecordFilter implements FlushableMessageProcessor {
+		/** the elements of the record path. */
+		private final String[] recordPath;
+		private final MessageProcessor processor;
+
+		RecordFilter(String recordPath, MessageProcessor processor) {
+			this.recordPath = recordPath.split("/");
+			this.processor = processor;
+		}
+
+		public void process(XMLEvent evt, ComplexDataType data) throws ProcessorException {
+			if (isInRecord(data)) {
+				processor.process(evt, data);
+			}
+		}
+
+		public void flush() throws ProcessorException {
+			if (processor instanceof FlushableMessageProcessor) {
+				((FlushableMessageProcessor) processor).flush();
+			}
+		}
+
+		/**
+		 * @return true if the element is a record or a descendant of a record
+		 */
+		private boolean isInRecord(ComplexDataType data) {
+			int depth = 0;
+			for (ComplexDataType e = data; e != null; e = e.getParent()) {
+				depth++;
+			}
+			if (depth < recordPath.length)
+				return false;
+			ComplexDataType e = data;
+			for (int i = depth; i > recordPath.length; i--) {
+				e = e.getParent();
+			}
+			for (int i = recordPath.length - 1; i >= 0; i--, e = e.getParent()) {
+				if (!recordPath[i].equals(e.getXMLElementName()))
+					return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Wait for all ranges and report the first error. The ranges that are
+	 * still running are cancelled after the first error.
+	 */
+	private static void await(List<Future<Void>> results) throws IOException, SAXException {
+		Throwable error = null;
+		for (Future<Void> f : results) {
+			try {
+				f.get();
+			} catch (ExecutionException e) {
+				if (error == null) {
+					error = e.getCause();
+					for (Future<Void> r : results) {
+						r.cancel(true);
+					}
+				} else {
+					error.addSuppressed(e.getCause());
+				}
+			} catch (CancellationException e) {
+				// cancelled after an error..
+			} catch (InterruptedException e) {
+				for (Future<Void> r : results) {
+					r.cancel(true);
+				}
+				Thread.currentThread().interrupt();
+				throw new SAXException("Interrupted while parsing.", e);
+			}
+		}
+		if (error instanceof IOException)
+			throw (IOException) error;
+		if (error instanceof SAXException)
+			throw (SAXException) error;
+		if (error instanceof RuntimeException)
+			throw (RuntimeException) error;
+		if (error instanceof Error)
+			throw (Error) error;
+		if (error != null)
+			throw new SAXException((Exception) error);
+	}
+}
@@ -0,0 +1,90 @@
+package com.xml2j.xml.parser;
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLReaderFactory;
+
+import com.xml2j.xml.core.ParserConfiguration;
+import com.xml2j.xml.core.ParserConfigurationException;
+
+/**
+ * The parsing backend of a ParserTask.
+ * 
+ * A backend provides the XMLReader that drives the handler tree. The default
+ * backend is the SAX reader of the platform. The backend is selected in the
+ * runtime properties with <code>xml2j.backend</code>, which is either
+ * "sax", "stax" or the name of a class that implements this interface.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public interface ParserBackend {
+	/** the property that selects the backend. */
+	static final String BACKEND = "xml2j.backend";
+	/** name of the SAX backend. */
+	static final String SAX = "sax";
+	/** name of the StAX backend. */
+	static final String STAX = "stax";
+
+	/** the SAX backend, uses the XMLReader of the platform. */
+	static final ParserBackend SAX_BACKEND = new ParserBackend() {
+		@SuppressWarnings("deprecation")
+		public XMLReader createXMLReader() throws SAXException {
+			return XMLReaderFactory.createXMLReader();
+		}
+	};
+
+	/** the StAX backend, pulls events from an XMLStreamReader. */
+	static final ParserBackend STAX_BACKEND = new ParserBackend() {
+		public XMLReader createXMLReader() {
+			return new StaxXMLReader();
+		}
+	};
+
+	/**
+	 * Create a new XMLReader.
+	 * @return the reader
+	 * @throws SAXException the reader could not be created
+	 */
+	XMLReader createXMLReader() throws SAXException;
+
+	/**
+	 * Get the backend that is selected in the configuration.
+	 * @param configuration the loaded configuration
+	 * @return the backend (SAX if none is selected)
+	 */
+	static ParserBackend forConfiguration(ParserConfiguration configuration) {
+		String name = configuration.getProperty(BACKEND);
+		if (name == null || name.trim().equalsIgnoreCase(SAX)) {
+			return SAX_BACKEND;
+		}
+		if (name.trim().equalsIgnoreCase(STAX)) {
+			return STAX_BACKEND;
+		}
+		try {
+			return (ParserBackend) Class.forName(name.trim()).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new ParserConfigurationException("Invalid " + BACKEND + ": " + name);
+		}
+	}
+}
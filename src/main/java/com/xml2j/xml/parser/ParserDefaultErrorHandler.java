@@ -29,15 +29,31 @@ import org.xml.sax.SAXParseException;
  * Default implementation of ErrorHandler.
  * This should generally be replaced with custom errorHandler.
  * 
+ * While documents are validated (see ParserTask.setValidation) a strict
+ * instance is used: errors are reported and abort the parse.
+ * 
  * @author  Lolke B. Dijkstra
  * @see ParserTask
  */
 
 class ParserDefaultErrorHandler implements ErrorHandler {
+	/** indicates whether errors abort the parse. */
+	private final boolean strict;
+
+	ParserDefaultErrorHandler() {
+		this(false);
+	}
+
+	ParserDefaultErrorHandler(boolean strict) {
+		this.strict = strict;
+	}
 
 	@Override
 	public void error(SAXParseException exception) throws SAXException {
 		System.err.print(exception.getMessage());
+		if (strict) {
+			throw exception;
+		}
 	}
 
 	@Override
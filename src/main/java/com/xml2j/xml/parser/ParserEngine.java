@@ -0,0 +1,177 @@
+package com.xml2j.xml.parser;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import com.xml2j.xml.core.MessageProcessor;
+
+/**
+ * Thread-safe facade for parsing many small documents.
+ * 
+ * Creating a ParserTask creates an XMLReader and builds the handler tree,
+ * which usually takes longer than parsing a small document. The engine keeps
+ * a pool of idle tasks: a document is parsed by a task leased from the pool,
+ * which is reset and returned to the pool afterwards. A new task is only
+ * created if no idle task is available; tasks that do not fit in the pool are
+ * dropped.
+ * 
+ * A task that failed is reset as well, so it is reused just like a task that
+ * completed the document. Tasks that are dropped are discarded, as are the
+ * idle tasks on {@link #shutdown()}.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public class ParserEngine {
+	static final Logger logger = LoggerFactory.getLogger(ParserEngine.class);
+
+	/** creates the tasks. */
+	private final ParserTaskFactory factory;
+	/** the idle tasks. */
+	private final ArrayBlockingQueue<ParserTask> idle;
+	/** indicates whether the engine was shut down. */
+	private volatile boolean shutdown = false;
+
+	/**
+	 * Constructor.
+	 * @param factory creates the tasks
+	 * @param maxIdle the maximum number of idle tasks kept in the pool
+	 */
+	public ParserEngine(ParserTaskFactory factory, int maxIdle) {
+		assert (factory != null && maxIdle > 0);
+		this.factory = factory;
+		this.idle = new ArrayBlockingQueue<>(maxIdle);
+	}
+
+	/**
+	 * Create tasks ahead of use.
+	 * @param n the number of tasks to add to the pool
+	 * @return this engine
+	 * @throws SAXException the reader could not be created
+	 * @throws IOException the configuration could not be loaded
+	 */
+	public ParserEngine prestart(int n) throws SAXException, IOException {
+		for (int i = 0; i != n && idle.remainingCapacity() > 0; i++) {
+			idle.offer(factory.create());
+		}
+		return this;
+	}
+
+	/**
+	 * @return the number of idle tasks
+	 */
+	public int getIdleCount() {
+		return idle.size();
+	}
+
+	/**
+	 * Lease a task. The task must be returned with {@link #release(ParserTask)}.
+	 * @return an idle task or a new task if none is idle
+	 * @throws SAXException the reader could not be created
+	 * @throws IOException the configuration could not be loaded
+	 */
+	public ParserTask lease() throws SAXException, IOException {
+		ParserTask task = idle.poll();
+		return task != null ? task : factory.create();
+	}
+
+	/**
+	 * Reset a leased task and return it to the pool.
+	 * @param task the task
+	 */
+	public void release(ParserTask task) {
+		assert (task != null);
+		try {
+			task.reset();
+		} catch (RuntimeException e) {
+			// a task that cannot be reset is dropped..
+			logger.warn("Dropping task: {}", e.getMessage());
+			task.discard();
+			return;
+		}
+		if (shutdown || !idle.offer(task)) {
+			task.discard();
+		}
+	}
+
+	/**
+	 * Discard the idle tasks. Tasks that are leased are discarded when they are
+	 * released.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		ParserTask task;
+		while ((task = idle.poll()) != null) {
+			task.discard();
+		}
+	}
+
+	/**
+	 * Parse a document with a leased task.
+	 * @param input the document
+	 * @param processor the processor of the elements
+	 * @throws IOException input error
+	 * @throws SAXException error reported by the parser or the processor
+	 */
+	public void process(InputSource input, MessageProcessor processor) throws IOException, SAXException {
+		assert (input != null && processor != null);
+
+		ParserTask task = lease();
+		try {
+			task.prepareStart(input, processor);
+			task.processXML();
+		} finally {
+			release(task);
+		}
+	}
+
+	/**
+	 * Parse a document with a leased task.
+	 * @param input the document
+	 * @param processor the processor of the elements
+	 * @throws IOException input error
+	 * @throws SAXException error reported by the parser or the processor
+	 */
+	public void process(InputStream input, MessageProcessor processor) throws IOException, SAXException {
+		process(new InputSource(input), processor);
+	}
+
+	/**
+	 * Parse a document with a leased task.
+	 * @param message the document
+	 * @param processor the processor of the elements
+	 * @throws IOException input error
+	 * @throws SAXException error reported by the parser or the processor
+	 */
+	public void process(byte[] message, MessageProcessor processor) throws IOException, SAXException {
+		process(new InputSource(new ByteArrayInputStream(message)), processor);
+	}
+}
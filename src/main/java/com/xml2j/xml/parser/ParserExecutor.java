@@ -0,0 +1,147 @@
+package com.xml2j.xml.parser;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+/**
+ * Runs ParserTasks on a pool of threads.
+ * 
+ * Each task is prepared (prepareStart) by the caller and submitted; the
+ * result is a CompletableFuture that completes with the statistics of the run
+ * or with the exception that aborted it, so completion is observed without
+ * polling. The pool has a fixed number of threads and a bounded queue; when
+ * the queue is full the submitting thread runs the task itself.
+ * 
+ * On a runtime that supports virtual threads, {@link #newVirtualThreadExecutor()}
+ * runs each task on its own virtual thread instead.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public class ParserExecutor implements AutoCloseable {
+	static final Logger logger = LoggerFactory.getLogger(ParserExecutor.class);
+
+	/** the executor that runs the tasks. */
+	private final ExecutorService executor;
+
+	/**
+	 * Constructor.
+	 * @param threads the number of threads
+	 * @param queueCapacity the number of tasks that can wait for a thread
+	 */
+	public ParserExecutor(int threads, int queueCapacity) {
+		assert (threads > 0 && queueCapacity > 0);
+		final AtomicInteger count = new AtomicInteger();
+		ThreadFactory factory = r -> {
+			Thread t = new Thread(r, "xml2j-parser-" + count.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		};
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(queueCapacity), factory, new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	private ParserExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Create an executor that runs each task on a new virtual thread.
+	 * @return the executor or null if the runtime does not support virtual threads
+	 */
+	public static ParserExecutor newVirtualThreadExecutor() {
+		try {
+			Method m = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return new ParserExecutor((ExecutorService) m.invoke(null));
+		} catch (ReflectiveOperationException e) {
+			if (logger.isDebugEnabled())
+				logger.debug("Virtual threads not available: {}", e.toString());
+			return null;
+		}
+	}
+
+	/**
+	 * Run a prepared task.
+	 * @param task the task, prepared with prepareStart
+	 * @return the statistics of the run, or the exception that aborted it
+	 */
+	public CompletableFuture<ParserStats> submit(final ParserTask task) {
+		assert (task != null);
+		final long submitted = System.nanoTime();
+		return CompletableFuture.supplyAsync(() -> run(task, submitted), executor);
+	}
+
+	/**
+	 * Run prepared tasks.
+	 * @param tasks the tasks, prepared with prepareStart
+	 * @return the futures in the order of the tasks
+	 */
+	public List<CompletableFuture<ParserStats>> submitAll(Collection<? extends ParserTask> tasks) {
+		List<CompletableFuture<ParserStats>> results = new ArrayList<>(tasks.size());
+		for (ParserTask task : tasks) {
+			results.add(submit(task));
+		}
+		return results;
+	}
+
+	/**
+	 * Stop accepting tasks and wait until the submitted tasks are complete.
+	 */
+	public void close() {
+		executor.shutdown();
+		try {
+			while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+				logger.info("Waiting for parser tasks to complete.");
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static ParserStats run(ParserTask task, long submitted) {
+		long started = System.nanoTime();
+		try {
+			task.processXML();
+		} catch (IOException | SAXException e) {
+			throw new CompletionException(e);
+		}
+		return new ParserStats(task, Thread.currentThread().getName(), started - submitted, System.nanoTime() - started);
+	}
+}
@@ -58,16 +58,44 @@ public abstract class ParserRunnable extends ParserTask implements Runnable {
 	public ParserRunnable(ParserConfiguration configuration, ErrorHandler errorHandler) throws SAXException, ParserConfigurationException, IOException {
 		super(configuration, errorHandler);
 	}
+	/**
+	 * Constructor of the parser task.
+	 * Use this constructor to select the parsing backend in code rather than in the configuration.
+	 * @param configuration the runtime configuration 
+	 * @param errorHandler the SAX error handler
+	 * @param backend the backend that provides the XMLReader
+	 * @throws org.xml.sax.SAXException
+	 * @throws ParserConfigurationException 
+	 * @throws IOException 
+	 */
+	public ParserRunnable(ParserConfiguration configuration, ErrorHandler errorHandler, ParserBackend backend) throws SAXException, ParserConfigurationException, IOException {
+		super(configuration, errorHandler, backend);
+	}
+
+	/** the exception that aborted the last run (if any). */
+	private volatile Exception failure = null;
+
+	/**
+	 * @return the exception that aborted the last run, or null if it completed
+	 */
+	public Exception getFailure() {
+		return failure;
+	}
 
 	@Override
 	public void run() {
+		failure = null;
 		try {
 			if( logger.isTraceEnabled())
 				logger.trace("Calling processXML() from {}", this.getClass());
 
 			processXML();
 		} catch (IOException | SAXException e) {
+			failure = e;
 			logger.error("ParserWorker aborted: {}", e.getMessage());
+		} catch (RuntimeException e) {
+			failure = e;
+			throw e;
 		}
 	}	 
 }
\ No newline at end of file
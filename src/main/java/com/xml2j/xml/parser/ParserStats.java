@@ -0,0 +1,77 @@
+package com.xml2j.xml.parser;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+/**
+ * Statistics of a single run of a ParserTask.
+ * 
+ * @author Lolke B. Dijkstra
+ * @see ParserExecutor
+ */
+public final class ParserStats {
+	private final ParserTask task;
+	private final String threadName;
+	private final long waitNanos;
+	private final long runNanos;
+
+	ParserStats(ParserTask task, String threadName, long waitNanos, long runNanos) {
+		this.task = task;
+		this.threadName = threadName;
+		this.waitNanos = waitNanos;
+		this.runNanos = runNanos;
+	}
+
+	/**
+	 * @return the task
+	 */
+	public ParserTask getTask() {
+		return task;
+	}
+
+	/**
+	 * @return the name of the thread that ran the task
+	 */
+	public String getThreadName() {
+		return threadName;
+	}
+
+	/**
+	 * @return the time the task waited for a thread, in nanoseconds
+	 */
+	public long getWaitNanos() {
+		return waitNanos;
+	}
+
+	/**
+	 * @return the time the task ran, in nanoseconds
+	 */
+	public long getRunNanos() {
+		return runNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "ParserStats[" + task.getClass().getSimpleName() + " on " + threadName
+				+ ", wait " + waitNanos / 1000000 + " ms, run " + runNanos / 1000000 + " ms]";
+	}
+}
@@ -24,7 +24,13 @@ Project root: https://sourceforge.net/projects/xml2j/
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.stream.StreamSource;
 
 import org.slf4j.Logger;
@@ -33,12 +39,17 @@ import org.xml.sax.ErrorHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
-import org.xml.sax.helpers.XMLReaderFactory;
 
+import com.xml2j.util.MappedFileInputStream;
+import com.xml2j.xml.core.ComplexDataType;
+import com.xml2j.xml.core.FlushableMessageProcessor;
+import com.xml2j.xml.core.MemoryBudget;
 import com.xml2j.xml.core.MessageHandler;
 import com.xml2j.xml.core.MessageProcessor;
 import com.xml2j.xml.core.ParserConfiguration;
 import com.xml2j.xml.core.ParserConfigurationException;
+import com.xml2j.xml.core.ParserMetrics;
+import com.xml2j.xml.core.ProcessorException;
 
 /**
  * Base class for creation of application glue.
@@ -54,12 +65,18 @@ public abstract class ParserTask {
 	private ParserConfiguration configuration = null;
 	private XMLReader reader = null;
 	protected MessageHandler handler = null;
+	private ParserMetrics metrics = null;
+	private MemoryBudget memoryBudget = null;
 	
-	private void initialize() throws ParserConfigurationException, IOException {
+	private void initialize(ParserBackend backend) throws SAXException, ParserConfigurationException, IOException {
+		this.configuration.load();
+		this.metrics = ParserMetrics.forTask(getClass().getSimpleName());
+		this.memoryBudget = MemoryBudget.forConfiguration(configuration);
+		this.reader = (backend != null ? backend : ParserBackend.forConfiguration(configuration)).createXMLReader();
+
 		if( logger.isTraceEnabled())
 			logger.trace("reader: {}, handler: {}", errorHandler, reader);
 
-		this.configuration.load();
 		this.reader.setErrorHandler( this.errorHandler );
 		this.handler = getMessageHandler( this.reader );
 	}
@@ -67,6 +84,48 @@ public abstract class ParserTask {
 	public ParserConfiguration getConfiguration() {
 		return configuration;
 	}
+
+	/**
+	 * @return the metrics of this task, or null if metrics are disabled (see ParserMetrics)
+	 */
+	public ParserMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Release what the task holds outside of itself, when it is no longer used:
+	 * the MBean of its metrics is unregistered and the elements spilled by its
+	 * memory budget are deleted. The frameworks discard the tasks
+	 * they create; a task created by the application is discarded by the
+	 * application.
+	 */
+	public void discard() {
+		if (metrics != null) {
+			metrics.unregister();
+		}
+		if (memoryBudget != null) {
+			memoryBudget.close();
+		}
+	}
+
+	/**
+	 * @return the memory budget of the linked elements, or null if there is none
+	 */
+	public MemoryBudget getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	/**
+	 * Limit the memory used by the linked elements of a document. This replaces
+	 * the budget configured with the property xml2j.budget.
+	 * @param memoryBudget the budget, or null for no limit
+	 */
+	public void setMemoryBudget(MemoryBudget memoryBudget) {
+		if (this.memoryBudget != null && this.memoryBudget != memoryBudget) {
+			this.memoryBudget.close();
+		}
+		this.memoryBudget = memoryBudget;
+	}
 	
 	/**
 	 * ParserApplication default constructor.
@@ -78,8 +137,7 @@ public abstract class ParserTask {
 		assert(configuration != null);
 		this.configuration = configuration;
 		this.errorHandler = new ParserDefaultErrorHandler();
-		this.reader  = XMLReaderFactory.createXMLReader();
-		initialize();
+		initialize(null);
 	}
 	
 	/**
@@ -94,8 +152,24 @@ public abstract class ParserTask {
 		assert(configuration != null && errorHandler != null);
 		this.configuration = configuration;
 		this.errorHandler = errorHandler;
-		this.reader  = XMLReaderFactory.createXMLReader();  
-		initialize();
+		initialize(null);
+	}
+
+	/**
+	 * ParserApplication constructor overriding the default ErrorHandler and the backend
+	 * that is selected in the configuration.
+	 * 
+	 * @param errorHandler the custom implementation of the org.xml.sax.ErrorHandler interface
+	 * @param backend the backend that provides the XMLReader
+	 * @throws SAXException 
+	 * @throws IOException 
+	 * @throws ParserConfigurationException 
+	 */
+	protected ParserTask(ParserConfiguration configuration, ErrorHandler errorHandler, ParserBackend backend) throws SAXException, ParserConfigurationException, IOException {
+		assert(configuration != null && errorHandler != null && backend != null);
+		this.configuration = configuration;
+		this.errorHandler = errorHandler;
+		initialize(backend);
 	}
 	
 
@@ -163,6 +237,54 @@ public abstract class ParserTask {
 		handler.validate(new StreamSource(input));
 	}	
 	
+	/**
+	 * Validate the documents against XML Schema while they are processed, so
+	 * each document is read once. Validation errors are reported to the
+	 * ErrorHandler of the task; the default ErrorHandler aborts processXML.
+	 * @param schema InputStream of XML Schema
+	 * @throws SAXException the schema could not be compiled
+	 */
+	public void setValidation(InputStream schema) throws SAXException {
+		assert (schema != null);
+
+		handler.setSchema(new StreamSource(schema));
+		startValidation();
+	}
+
+	/**
+	 * Validate the documents against XML Schemas while they are processed, so
+	 * each document is read once. Validation errors are reported to the
+	 * ErrorHandler of the task; the default ErrorHandler aborts processXML.
+	 * @param schemas InputStream of XML Schema
+	 * @throws SAXException the schema could not be compiled
+	 */
+	public void setValidation(InputStream[] schemas) throws SAXException {
+		assert (schemas != null && schemas.length > 0);
+
+		StreamSource[] sources = new StreamSource[schemas.length];
+		for (int i = 0; i != schemas.length; i++) {
+			sources[i] = new StreamSource(schemas[i]);
+		}
+		handler.setSchema(sources);
+		startValidation();
+	}
+
+	private void startValidation() {
+		// only a validating parse aborts on errors by default..
+		if (errorHandler instanceof ParserDefaultErrorHandler) {
+			reader.setErrorHandler(new ParserDefaultErrorHandler(true));
+		}
+		handler.setValidating(true);
+	}
+
+	/**
+	 * Stop validating the documents while they are processed.
+	 */
+	public void clearValidation() {
+		handler.setValidating(false);
+		reader.setErrorHandler(errorHandler);
+	}
+
 	private MessageProcessor processor = null;
 	public MessageProcessor getDataProcessor() { return processor; }
 	public MessageHandler getMessageHandler() { return handler; }
@@ -205,13 +327,221 @@ public abstract class ParserTask {
 		handler.setInputSource(input);
 	}
 
+	/**
+	 * Prepare process the XML document in a file. The file is memory mapped
+	 * and the parser reads straight from the mapped pages.
+	 * @param input path of the XML document
+	 * @param dataProcessor Custom implementation of DataProcessor interface
+	 * @throws IOException the file cannot be mapped
+	 */
+	public void prepareStart(Path input, MessageProcessor dataProcessor) throws IOException {
+		assert (reader != null && input != null && dataProcessor != null);
+
+		if( logger.isTraceEnabled())
+			logger.trace("prepareStart( input: {}, dataProcessor: {} )", input, dataProcessor);
+
+		InputSource source = new InputSource(new MappedFileInputStream(input));
+		source.setSystemId(input.toUri().toString());
+
+		// connect to processor..
+		processor = dataProcessor;
+		// connect input source..
+		handler.setInputSource(source);
+	}
+
 	/**
 	 * Process the XML message.
 	 * @throws IOException
 	 * @throws SAXException
 	 */
 	public void processXML() throws IOException, SAXException{
-		handler.process();
+		boolean completed = false;
+		try {
+			handler.process();
+			completed = true;
+		} finally {
+			flush(completed);
+		}
+	}
+
+	/**
+	 * Complete the processing at the end of the document, if the processor does
+	 * not complete the processing of elements immediately (for instance a
+	 * ProcessorPipeline). If the parse failed the parse error is reported and an
+	 * error of the processor is only logged.
+	 * @param completed indicates whether the parse completed
+	 */
+	private void flush(boolean completed) {
+		if (!(processor instanceof FlushableMessageProcessor))
+			return;
+		if (completed) {
+			((FlushableMessageProcessor) processor).flush();
+			return;
+		}
+		try {
+			((FlushableMessageProcessor) processor).flush();
+		} catch (ProcessorException e) {
+			logger.warn("Processor error after failed parse: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Stream the completed elements that are configured with '@process'. The
+	 * document is parsed lazily, as the elements are consumed, and the task
+	 * cannot be used for anything else until the stream is consumed or closed.
+	 * While the stream is parsed it takes the place of the processor of the
+	 * task; the processor is restored at the end of the document or when the
+	 * stream is closed. The stream closes the input when it is closed, so it
+	 * must be closed if it is not consumed completely (e.g. findFirst).
+	 * Use ParallelParser.stream for a stream that can be split.
+	 * @param input InputSource to XML document
+	 * @param type the type of the elements, elements of other types are skipped
+	 * @return the elements in document order
+	 */
+	public <T extends ComplexDataType> Stream<T> stream(InputSource input, Class<T> type) {
+		assert (reader != null && input != null && type != null);
+
+		if( logger.isTraceEnabled())
+			logger.trace("stream( input: {}, type: {} )", input, type);
+
+		RecordSpliterator<T> records = new RecordSpliterator<>(this, input, type);
+		return StreamSupport.stream(records, false).onClose(records::close);
+	}
+
+	/**
+	 * Stream the completed elements of a file that are configured with '@process'.
+	 * The file is memory mapped. The stream must be closed if it is not consumed
+	 * completely, see stream(InputSource, Class).
+	 * @param input path of the XML document
+	 * @param type the type of the elements, elements of other types are skipped
+	 * @return the elements in document order
+	 * @throws IOException the file cannot be mapped
+	 */
+	public <T extends ComplexDataType> Stream<T> stream(Path input, Class<T> type) throws IOException {
+		assert (input != null);
+
+		InputSource source = new InputSource(new MappedFileInputStream(input));
+		source.setSystemId(input.toUri().toString());
+		return stream(source, type);
+	}
+
+	/**
+	 * Prepare a parse that is driven by the consumer of the events.
+	 * @param input the document
+	 * @param collector the processor that collects the elements
+	 * @return the events of the document
+	 * @throws SAXException the document cannot be opened, the input is closed
+	 */
+	StaxEventBridge preparePull(InputSource input, MessageProcessor collector) throws SAXException {
+		XMLStreamReader stream;
+		try {
+			stream = StaxXMLReader.createStreamReader(input);
+		} catch (XMLStreamException e) {
+			StaxXMLReader.closeInput(input, e);
+			throw new SAXException(e);
+		} catch (RuntimeException e) {
+			StaxXMLReader.closeInput(input, e);
+			throw e;
+		}
+		// connect to processor, the processor of the task is restored by finishPull..
+		suspended = processor;
+		processor = collector;
+		// connect handlers, the events are delivered to the reader's content handler..
+		handler.connect();
+		return new StaxEventBridge(stream, reader);
+	}
+
+	/** the processor of the task while a parse is driven by the consumer of the events. */
+	private MessageProcessor suspended = null;
+
+	/**
+	 * Complete a parse that is driven by the consumer of the events, also if it
+	 * did not reach the end of the document. The parser and the input are
+	 * closed and the processor of the task is restored.
+	 * @param bridge the events of the document
+	 * @param input the document
+	 * @throws SAXException error reported by the parser
+	 * @throws IOException the input cannot be closed
+	 */
+	void finishPull(StaxEventBridge bridge, InputSource input) throws SAXException, IOException {
+		processor = suspended;
+		suspended = null;
+		try {
+			bridge.getStream().close();
+		} catch (XMLStreamException e) {
+			throw new SAXException(e);
+		} finally {
+			// the stream reader does not close the input..
+			StaxXMLReader.closeInput(input);
+		}
+	}
+
+	/**
+	 * Drop the processor, the input and the data of the last document, so the
+	 * task can be reused for another document without holding on to them. The
+	 * elements spilled by the memory budget are deleted.
+	 */
+	public void reset() {
+		processor = null;
+		feeder = null;
+		if (memoryBudget != null) {
+			memoryBudget.close();
+		}
+		handler.setInputSource((InputSource) null);
+		handler.connect();
+	}
+
+	/** the feeder of the incremental parse (if any). */
+	private AsyncFeeder feeder = null;
+
+	/**
+	 * Prepare an incremental parse of an XML document that is passed in chunks to feed.
+	 * The incremental parse requires the optional aalto-xml dependency.
+	 * @param dataProcessor Custom implementation of DataProcessor interface
+	 */
+	public void prepareFeed(MessageProcessor dataProcessor) {
+		assert (reader != null && dataProcessor != null);
+
+		if( logger.isTraceEnabled())
+			logger.trace("prepareFeed( dataProcessor: {} )", dataProcessor);
+
+		// connect to processor..
+		processor = dataProcessor;
+		// connect handlers, the events are delivered to the reader's content handler..
+		handler.connect();
+		feeder = new AsyncFeeder(reader);
+	}
+
+	/**
+	 * Parse the next chunk of the XML document. The method does not block: it
+	 * processes the events found in the chunk and returns when the chunk is consumed.
+	 * @param input the next chunk of the document
+	 * @throws SAXException error reported by the parser or the processor
+	 */
+	public void feed(ByteBuffer input) throws SAXException {
+		assert (input != null);
+		if (feeder == null) {
+			throw new ParserConfigurationException("feed called before prepareFeed.");
+		}
+		feeder.feed(input);
+	}
+
+	/**
+	 * Signal that the XML document is complete and process the remaining events.
+	 * @throws SAXException error reported by the parser or the processor, or the document is incomplete
+	 */
+	public void endOfInput() throws SAXException {
+		if (feeder == null) {
+			throw new ParserConfigurationException("endOfInput called before prepareFeed.");
+		}
+		boolean completed = false;
+		try {
+			feeder.endOfInput();
+			completed = true;
+		} finally {
+			feeder = null;
+			flush(completed);
+		}
 	}
 
 }
@@ -0,0 +1,207 @@
+package com.xml2j.xml.parser;
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.xml2j.util.MappedFileInputStream;
+
+/**
+ * Finds the boundaries of repeated record elements in a memory mapped document.
+ * 
+ * A document that consists of a header, a long run of record elements and a
+ * trailer can be cut between records. Each part is made a well-formed document
+ * by prefixing the header (which holds the prolog, the enclosing elements with
+ * their attributes and namespace declarations) and appending the trailer
+ * (which closes the enclosing elements).
+ * 
+ * The scanner looks for the start tags of the records without tokenizing the
+ * document. So the record element must not be nested in itself and its start
+ * tag must not appear inside comments or CDATA sections. Only encodings that
+ * are a superset of ASCII (such as UTF-8 and ISO-8859-x) are supported.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+class RecordScanner {
+	/** the channel of the document. */
+	private final FileChannel channel;
+	/** the mapped document. */
+	private final ByteBuffer[] chunks;
+	/** the size of the document. */
+	private final long size;
+	/** "&lt;name" of the record element. */
+	private final byte[] startTag;
+	/** "&lt;/name" of the record element. */
+	private final byte[] endTag;
+	/** position of the first record. */
+	private final long first;
+	/** position just after the last record. */
+	private final long trailer;
+
+	/**
+	 * Constructor.
+	 * @param channel the channel of the document
+	 * @param recordName the qualified name of the record element as it appears in the document
+	 * @throws IOException the document cannot be mapped
+	 */
+	RecordScanner(FileChannel channel, String recordName) throws IOException {
+		this.channel = channel;
+		this.size = channel.size();
+		this.chunks = MappedFileInputStream.map(channel, 0, size);
+		this.startTag = ("<" + recordName).getBytes(StandardCharsets.UTF_8);
+		this.endTag = ("</" + recordName).getBytes(StandardCharsets.UTF_8);
+		this.first = nextStart(0, size);
+		this.trailer = first < 0 ? -1 : findTrailer();
+	}
+
+	/**
+	 * @return true if the document contains at least one record
+	 */
+	boolean hasRecords() {
+		return first >= 0;
+	}
+
+	/**
+	 * @return position of the first record
+	 */
+	long first() {
+		return first;
+	}
+
+	/**
+	 * @return position just after the last record
+	 */
+	long trailer() {
+		return trailer;
+	}
+
+	/**
+	 * Cut the records in at most n ranges of about equal size.
+	 * @param n the number of ranges
+	 * @return the boundaries: the first record, the start of each next range and the trailer
+	 */
+	long[] split(int n) {
+		long[] bounds = new long[n + 1];
+		int k = 0;
+		bounds[k++] = first;
+		long span = trailer - first;
+		for (int i = 1; i < n; i++) {
+			long start = nextStart(Math.max(first + span * i / n, bounds[k - 1] + 1), trailer);
+			if (start < 0)
+				break;
+			if (start > bounds[k - 1])
+				bounds[k++] = start;
+		}
+		bounds[k++] = trailer;
+		return Arrays.copyOf(bounds, k);
+	}
+
+	/**
+	 * Find the first record start tag at or after a position.
+	 * @param from the position to start searching
+	 * @param limit the position to stop searching
+	 * @return position of the start tag or -1 if there is none
+	 */
+	long nextStart(long from, long limit) {
+		for (long p = from; p + startTag.length < limit; p++) {
+			if (matches(p, startTag) && isNameEnd(byteAt(p + startTag.length)))
+				return p;
+		}
+		return -1;
+	}
+
+	/**
+	 * Open a well-formed document holding the records in a range.
+	 * @param from position of the first record in the range
+	 * @param to position just after the last record in the range
+	 * @return the document
+	 * @throws IOException the range cannot be mapped
+	 */
+	InputStream open(long from, long to) throws IOException {
+		InputStream header = new MappedFileInputStream(channel, 0, first);
+		InputStream records = new MappedFileInputStream(channel, from, to - from);
+		InputStream tail = new MappedFileInputStream(channel, trailer, size - trailer);
+		return new SequenceInputStream(Collections.enumeration(Arrays.asList(header, records, tail)));
+	}
+
+	private long findTrailer() {
+		// the end tag of the last record..
+		long end = -1;
+		for (long p = size - endTag.length - 1; p >= first; p--) {
+			if (matches(p, endTag) && isNameEnd(byteAt(p + endTag.length))) {
+				end = tagEnd(p + endTag.length) + 1;
+				break;
+			}
+		}
+		// ..unless the last record is an empty element tag..
+		for (long p = size - startTag.length - 1; p > end; p--) {
+			if (matches(p, startTag) && isNameEnd(byteAt(p + startTag.length))) {
+				return tagEnd(p + startTag.length) + 1;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Find the '&gt;' that ends a tag, skipping the quoted attribute values.
+	 * @param from a position inside the tag
+	 * @return position of the '&gt;' (or the last position of the document)
+	 */
+	private long tagEnd(long from) {
+		byte quote = 0;
+		for (long p = from; p < size; p++) {
+			byte b = byteAt(p);
+			if (quote != 0) {
+				if (b == quote)
+					quote = 0;
+			} else if (b == '"' || b == '\'') {
+				quote = b;
+			} else if (b == '>') {
+				return p;
+			}
+		}
+		return size - 1;
+	}
+
+	private boolean matches(long p, byte[] tag) {
+		for (int i = 0; i != tag.length; i++) {
+			if (byteAt(p + i) != tag[i])
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isNameEnd(byte b) {
+		return b == '>' || b == '/' || b == ' ' || b == '\t' || b == '\n' || b == '\r';
+	}
+
+	private byte byteAt(long p) {
+		return chunks[(int) (p / MappedFileInputStream.CHUNK_SIZE)].get((int) (p % MappedFileInputStream.CHUNK_SIZE));
+	}
+}
@@ -0,0 +1,249 @@
+package com.xml2j.xml.parser;
+
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import com.xml2j.xml.core.ComplexDataType;
+import com.xml2j.xml.core.MessageProcessor;
+import com.xml2j.xml.core.ProcessorException;
+import com.xml2j.xml.core.XMLEvent;
+
+/**
+ * Spliterator over the completed elements that are configured with '@process'.
+ * 
+ * The document is parsed lazily: each call to tryAdvance pulls events from
+ * the parser until the next element is complete, so a short-circuiting
+ * operation stops the parse. A spliterator over a range of records in a file
+ * splits at a record boundary, as long as it did not start parsing; each part
+ * is parsed by its own ParserTask.
+ * 
+ * Errors reported by the parser are rethrown as ProcessorException.
+ * 
+ * The input of a parse is closed at the end of the document. Use
+ * {@link #close()} (from Stream.onClose) to close the parses that did not
+ * reach the end, for instance after a short-circuiting operation.
+ * 
+ * @author Lolke B. Dijkstra
+ * @see RecordScanner
+ */
+class RecordSpliterator<T extends ComplexDataType> implements Spliterator<T>, MessageProcessor {
+	/** ranges smaller than this number of bytes are not split. */
+	static final long MIN_SPLIT = 1L << 16;
+
+	/** the type of the elements. */
+	private final Class<T> type;
+	/** the completed elements that were not consumed yet. */
+	private final ArrayDeque<T> ready = new ArrayDeque<>();
+	/** creates the task of a split (null if the input cannot be split). */
+	private final ParserTaskFactory factory;
+	/** finds the record boundaries (null if the input cannot be split). */
+	private final RecordScanner scanner;
+	/** the system id of the file. */
+	private final String systemId;
+	/** the range of records. */
+	private long from, to;
+	/** the parses of this spliterator and its splits that did not complete. */
+	private final Queue<RecordSpliterator<?>> open;
+
+	/** the task that parses the input (created when needed). */
+	private ParserTask task;
+	/** the input (created when needed). */
+	private InputSource input;
+	/** the events of the parse (null if the parse did not start). */
+	private StaxEventBridge bridge = null;
+	/** indicates whether the parse is complete. */
+	private boolean done = false;
+
+	/**
+	 * Constructor of a spliterator that does not split.
+	 * @param task the task that parses the input
+	 * @param input the document
+	 * @param type the type of the elements, other elements are skipped
+	 */
+	RecordSpliterator(ParserTask task, InputSource input, Class<T> type) {
+		this.task = task;
+		this.input = input;
+		this.type = type;
+		this.factory = null;
+		this.scanner = null;
+		this.systemId = null;
+		this.open = new ConcurrentLinkedQueue<>();
+	}
+
+	/**
+	 * Constructor of a spliterator over a range of records.
+	 * @param factory creates the tasks
+	 * @param task the task that parses the range (or null to create one)
+	 * @param scanner the scanner of the file
+	 * @param from position of the first record in the range
+	 * @param to position just after the last record in the range
+	 * @param systemId the system id of the file
+	 * @param type the type of the elements, other elements are skipped
+	 */
+	RecordSpliterator(ParserTaskFactory factory, ParserTask task, RecordScanner scanner, long from, long to, String systemId, Class<T> type) {
+		this(factory, task, scanner, from, to, systemId, type, new ConcurrentLinkedQueue<RecordSpliterator<?>>());
+	}
+
+	private RecordSpliterator(ParserTaskFactory factory, ParserTask task, RecordScanner scanner, long from, long to,
+			String systemId, Class<T> type, Queue<RecordSpliterator<?>> open) {
+		this.open = open;
+		this.factory = factory;
+		this.task = task;
+		this.scanner = scanner;
+		this.from = from;
+		this.to = to;
+		this.systemId = systemId;
+		this.type = type;
+	}
+
+	/**
+	 * Collect a completed element.
+	 */
+	public void process(XMLEvent evt, ComplexDataType data) throws ProcessorException {
+		if (evt == XMLEvent.END && type.isInstance(data)) {
+			ready.add(type.cast(data));
+		}
+	}
+
+	public boolean tryAdvance(Consumer<? super T> action) {
+		while (ready.isEmpty()) {
+			if (done)
+				return false;
+			pull();
+		}
+		action.accept(ready.poll());
+		return true;
+	}
+
+	public Spliterator<T> trySplit() {
+		if (scanner == null || bridge != null || to - from < MIN_SPLIT)
+			return null;
+
+		long mid = scanner.nextStart(from + (to - from) / 2, to);
+		if (mid <= from)
+			return null;
+
+		RecordSpliterator<T> prefix = new RecordSpliterator<>(factory, null, scanner, from, mid, systemId, type, open);
+		from = mid;
+		return prefix;
+	}
+
+	public long estimateSize() {
+		return scanner != null ? to - from : Long.MAX_VALUE;
+	}
+
+	public int characteristics() {
+		return ORDERED | NONNULL;
+	}
+
+	/**
+	 * Close the parses of this spliterator and its splits that did not reach
+	 * the end of the document.
+	 */
+	void close() {
+		if (factory != null && task != null && bridge == null) {
+			// never started..
+			task.discard();
+		}
+		for (RecordSpliterator<?> s : open) {
+			s.done = true;
+			try {
+				s.finish();
+			} catch (SAXException e) {
+				throw new ProcessorException(e);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private void pull() {
+		try {
+			if (bridge == null) {
+				start();
+			}
+			if (!bridge.next()) {
+				done = true;
+				finish();
+			}
+		} catch (SAXException | RuntimeException e) {
+			done = true;
+			finish(e);
+			throw e instanceof SAXException ? new ProcessorException((SAXException) e) : (RuntimeException) e;
+		} catch (IOException e) {
+			done = true;
+			finish(e);
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Close the parse, if it is open.
+	 */
+	private synchronized void finish() throws SAXException, IOException {
+		if (bridge != null && open.remove(this)) {
+			try {
+				task.finishPull(bridge, input);
+			} finally {
+				if (factory != null) {
+					// tasks of a split file are created for the spliterator..
+					task.discard();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Close the parse after an error.
+	 * @param error the error, errors of closing are added to it
+	 */
+	private void finish(Exception error) {
+		try {
+			finish();
+		} catch (SAXException | IOException e) {
+			error.addSuppressed(e);
+		}
+	}
+
+	private void start() throws SAXException, IOException {
+		if (input == null) {
+			if (task == null) {
+				task = factory.create();
+			}
+			input = new InputSource(scanner.open(from, to));
+			input.setSystemId(systemId);
+		}
+		bridge = task.preparePull(input, this);
+		open.add(this);
+	}
+}
@@ -0,0 +1,120 @@
+package com.xml2j.xml.parser;
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import javax.xml.stream.XMLStreamReader;
+
+import org.xml.sax.Attributes;
+
+/**
+ * SAX Attributes view of the attributes of the current start element of an
+ * XMLStreamReader. The attributes are read from the stream reader on demand,
+ * nothing is copied.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+final class StaxAttributes implements Attributes {
+	private static final String CDATA = "CDATA";
+
+	private XMLStreamReader reader = null;
+
+	/**
+	 * @param reader the reader positioned at a start element
+	 * @return this view
+	 */
+	StaxAttributes of(XMLStreamReader reader) {
+		this.reader = reader;
+		return this;
+	}
+
+	public int getLength() {
+		return reader.getAttributeCount();
+	}
+
+	public String getURI(int index) {
+		if (!valid(index))
+			return null;
+		String uri = reader.getAttributeNamespace(index);
+		return uri == null ? "" : uri;
+	}
+
+	public String getLocalName(int index) {
+		return valid(index) ? reader.getAttributeLocalName(index) : null;
+	}
+
+	public String getQName(int index) {
+		if (!valid(index))
+			return null;
+		String prefix = reader.getAttributePrefix(index);
+		String local = reader.getAttributeLocalName(index);
+		return prefix == null || prefix.isEmpty() ? local : prefix + ':' + local;
+	}
+
+	public String getType(int index) {
+		if (!valid(index))
+			return null;
+		String type = reader.getAttributeType(index);
+		return type == null ? CDATA : type;
+	}
+
+	public String getValue(int index) {
+		return valid(index) ? reader.getAttributeValue(index) : null;
+	}
+
+	public int getIndex(String uri, String localName) {
+		int n = reader.getAttributeCount();
+		for (int i = 0; i != n; i++) {
+			if (reader.getAttributeLocalName(i).equals(localName) && getURI(i).equals(uri))
+				return i;
+		}
+		return -1;
+	}
+
+	public int getIndex(String qName) {
+		int n = reader.getAttributeCount();
+		for (int i = 0; i != n; i++) {
+			if (getQName(i).equals(qName))
+				return i;
+		}
+		return -1;
+	}
+
+	public String getType(String uri, String localName) {
+		return getType(getIndex(uri, localName));
+	}
+
+	public String getType(String qName) {
+		return getType(getIndex(qName));
+	}
+
+	public String getValue(String uri, String localName) {
+		return getValue(getIndex(uri, localName));
+	}
+
+	public String getValue(String qName) {
+		return getValue(getIndex(qName));
+	}
+
+	private boolean valid(int index) {
+		return index >= 0 && index < reader.getAttributeCount();
+	}
+}
@@ -0,0 +1,254 @@
+package com.xml2j.xml.parser;
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+
+import com.xml2j.xml.core.SkippingContentHandler;
+
+/**
+ * Translates the events of an XMLStreamReader into SAX events.
+ * 
+ * The events are delivered to the ContentHandler that is connected to the
+ * target XMLReader at the time of the event, so the handler tree can switch
+ * handlers exactly as it does with a SAX parser.
+ * 
+ * When a handler skips an element ('@skip') the bridge passes over the
+ * events of the element without translating them, and reports the end of
+ * the element with SkippingContentHandler.skipped.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+class StaxEventBridge implements Locator {
+	/** the source of the events. */
+	private final XMLStreamReader stream;
+	/** the reader whose ContentHandler receives the events. */
+	private final XMLReader target;
+	/** reusable attributes view. */
+	private final StaxAttributes attributes = new StaxAttributes();
+	/** indicates whether startDocument was delivered. */
+	private boolean started = false;
+	/** the handler that skips the current element (null if not skipping). */
+	private SkippingContentHandler skipping = null;
+	/** depth in the skipped element. */
+	private int skipDepth = 0;
+
+	/**
+	 * Constructor.
+	 * @param stream the source of the events
+	 * @param target the reader whose ContentHandler receives the events
+	 */
+	StaxEventBridge(XMLStreamReader stream, XMLReader target) {
+		this.stream = stream;
+		this.target = target;
+	}
+
+	/**
+	 * @return the source of the events
+	 */
+	XMLStreamReader getStream() {
+		return stream;
+	}
+
+	/**
+	 * Deliver all remaining events.
+	 * @throws SAXException error reported by the handlers or the parser
+	 */
+	void parse() throws SAXException {
+		while (next()) {
+		}
+	}
+
+	/**
+	 * Deliver the next event.
+	 * @return false if the end of the document was reached, true otherwise
+	 * @throws SAXException error reported by the handlers or the parser
+	 */
+	boolean next() throws SAXException {
+		try {
+			begin();
+			if (!stream.hasNext()) {
+				return false;
+			}
+			return deliver(stream.next());
+		} catch (XMLStreamException e) {
+			throw fatal(e);
+		}
+	}
+
+	/**
+	 * Deliver the start of the document, unless it was delivered already.
+	 * @throws SAXException error reported by the handlers
+	 */
+	void begin() throws SAXException {
+		if (!started) {
+			started = true;
+			ContentHandler h = target.getContentHandler();
+			if (h != null) {
+				h.setDocumentLocator(this);
+				h.startDocument();
+			}
+		}
+	}
+
+	/**
+	 * Deliver the event the stream is positioned at.
+	 * @param event the type of the event
+	 * @return false if the end of the document was reached, true otherwise
+	 * @throws SAXException error reported by the handlers
+	 * @throws XMLStreamException error reported by the parser
+	 */
+	boolean deliver(int event) throws SAXException, XMLStreamException {
+		if (skipping != null) {
+			pass(event);
+			return true;
+		}
+		ContentHandler h = target.getContentHandler();
+		if (h == null) {
+			return event != XMLStreamConstants.END_DOCUMENT;
+		}
+
+		switch (event) {
+		case XMLStreamConstants.START_ELEMENT:
+			for (int i = 0, n = stream.getNamespaceCount(); i != n; i++) {
+				h.startPrefixMapping(prefix(stream.getNamespacePrefix(i)), uri(stream.getNamespaceURI(i)));
+			}
+			h.startElement(uri(stream.getNamespaceURI()), stream.getLocalName(), qName(), attributes.of(stream));
+			h = target.getContentHandler();
+			if (h instanceof SkippingContentHandler && ((SkippingContentHandler) h).isSkipping()) {
+				skipping = (SkippingContentHandler) h;
+				skipDepth = 1;
+			}
+			break;
+
+		case XMLStreamConstants.END_ELEMENT:
+			h.endElement(uri(stream.getNamespaceURI()), stream.getLocalName(), qName());
+			for (int i = 0, n = stream.getNamespaceCount(); i != n; i++) {
+				target.getContentHandler().endPrefixMapping(prefix(stream.getNamespacePrefix(i)));
+			}
+			break;
+
+		case XMLStreamConstants.CHARACTERS:
+		case XMLStreamConstants.CDATA:
+			h.characters(stream.getTextCharacters(), stream.getTextStart(), stream.getTextLength());
+			break;
+
+		case XMLStreamConstants.SPACE:
+			h.ignorableWhitespace(stream.getTextCharacters(), stream.getTextStart(), stream.getTextLength());
+			break;
+
+		case XMLStreamConstants.PROCESSING_INSTRUCTION:
+			h.processingInstruction(stream.getPITarget(), stream.getPIData());
+			break;
+
+		case XMLStreamConstants.ENTITY_REFERENCE:
+			h.skippedEntity(stream.getLocalName());
+			break;
+
+		case XMLStreamConstants.END_DOCUMENT:
+			h.endDocument();
+			return false;
+
+		default:
+			// comments, DTD and the like are not reported
+			break;
+		}
+		return true;
+	}
+
+	/**
+	 * Pass over an event of a skipped element. Only the depth is tracked; the
+	 * text and attributes are not read from the stream.
+	 * @param event the type of the event
+	 * @throws SAXException error reported by the handlers
+	 */
+	private void pass(int event) throws SAXException {
+		if (event == XMLStreamConstants.START_ELEMENT) {
+			skipDepth++;
+		} else if (event == XMLStreamConstants.END_ELEMENT && --skipDepth == 0) {
+			SkippingContentHandler h = skipping;
+			skipping = null;
+			h.skipped();
+			for (int i = 0, n = stream.getNamespaceCount(); i != n; i++) {
+				target.getContentHandler().endPrefixMapping(prefix(stream.getNamespacePrefix(i)));
+			}
+		}
+	}
+
+	/**
+	 * Report a parser error to the ErrorHandler of the target.
+	 * @param e the parser error
+	 * @return the exception to throw
+	 * @throws SAXException exception thrown by the ErrorHandler
+	 */
+	SAXParseException fatal(XMLStreamException e) throws SAXException {
+		Location l = e.getLocation();
+		SAXParseException pe = l == null
+				? new SAXParseException(e.getMessage(), this, e)
+				: new SAXParseException(e.getMessage(), l.getPublicId(), l.getSystemId(),
+						l.getLineNumber(), l.getColumnNumber(), e);
+		ErrorHandler errorHandler = target.getErrorHandler();
+		if (errorHandler != null) {
+			errorHandler.fatalError(pe);
+		}
+		return pe;
+	}
+
+	private String qName() {
+		String prefix = stream.getPrefix();
+		return prefix == null || prefix.isEmpty() ? stream.getLocalName() : prefix + ':' + stream.getLocalName();
+	}
+
+	private static String prefix(String prefix) {
+		return prefix == null ? "" : prefix;
+	}
+
+	private static String uri(String uri) {
+		return uri == null ? "" : uri;
+	}
+
+	public String getPublicId() {
+		return stream.getLocation().getPublicId();
+	}
+
+	public String getSystemId() {
+		return stream.getLocation().getSystemId();
+	}
+
+	public int getLineNumber() {
+		return stream.getLocation().getLineNumber();
+	}
+
+	public int getColumnNumber() {
+		return stream.getLocation().getColumnNumber();
+	}
+}
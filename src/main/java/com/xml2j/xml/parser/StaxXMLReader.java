@@ -0,0 +1,209 @@
+package com.xml2j.xml.parser;
+/********************************************************************************
+Copyright 2016 Lolke B. Dijkstra
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of 
+this software and associated documentation files (the "Software"), to deal in the
+Software without restriction, including without limitation the rights to use, 
+copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the 
+Software, and to permit persons to whom the Software is furnished to do so, 
+subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all 
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION 
+OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE 
+SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Project root: https://sourceforge.net/projects/xml2j/
+********************************************************************************/
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
+
+/**
+ * XMLReader that pulls the document from a StAX XMLStreamReader.
+ * 
+ * The reader drives the same handler tree as the SAX backend. Characters are
+ * passed straight from the buffer of the stream reader and attributes are
+ * read from the stream reader on demand.
+ * 
+ * @author Lolke B. Dijkstra
+ */
+public class StaxXMLReader implements XMLReader {
+	static final String NAMESPACES = "http://xml.org/sax/features/namespaces";
+	static final String NAMESPACE_PREFIXES = "http://xml.org/sax/features/namespace-prefixes";
+
+	/** the factory is thread-safe once configured. */
+	private static final XMLInputFactory factory = newFactory();
+
+	private ContentHandler contentHandler = null;
+	private ErrorHandler errorHandler = null;
+	private DTDHandler dtdHandler = null;
+	private EntityResolver entityResolver = null;
+
+	private static XMLInputFactory newFactory() {
+		XMLInputFactory f = XMLInputFactory.newInstance();
+		f.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		f.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+		return f;
+	}
+
+	/**
+	 * @return the factory used to create the stream readers
+	 */
+	static XMLInputFactory getFactory() {
+		return factory;
+	}
+
+	/**
+	 * Create a stream reader for the input.
+	 * @param input the document
+	 * @return the stream reader
+	 * @throws XMLStreamException the reader could not be created
+	 */
+	static XMLStreamReader createStreamReader(InputSource input) throws XMLStreamException {
+		if (input.getCharacterStream() != null) {
+			return factory.createXMLStreamReader(input.getSystemId(), input.getCharacterStream());
+		}
+		if (input.getByteStream() != null) {
+			return input.getEncoding() != null
+					? factory.createXMLStreamReader(input.getByteStream(), input.getEncoding())
+					: factory.createXMLStreamReader(input.getSystemId(), input.getByteStream());
+		}
+		return factory.createXMLStreamReader(new StreamSource(input.getSystemId()));
+	}
+
+	/**
+	 * Close the streams of the input, the stream readers do not close them.
+	 * @param input the document
+	 * @throws IOException a stream cannot be closed
+	 */
+	static void closeInput(InputSource input) throws IOException {
+		InputStream in = input.getByteStream();
+		Reader r = input.getCharacterStream();
+		input.setByteStream(null);
+		input.setCharacterStream(null);
+		try {
+			if (in != null) {
+				in.close();
+			}
+		} finally {
+			if (r != null) {
+				r.close();
+			}
+		}
+	}
+
+	/**
+	 * Close the streams of the input after an error.
+	 * @param input the document
+	 * @param error the error, an error of closing is added to it
+	 */
+	static void closeInput(InputSource input, Exception error) {
+		try {
+			closeInput(input);
+		} catch (IOException e) {
+			error.addSuppressed(e);
+		}
+	}
+
+	public boolean getFeature(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+		if (NAMESPACES.equals(name))
+			return true;
+		if (NAMESPACE_PREFIXES.equals(name))
+			return false;
+		throw new SAXNotRecognizedException(name);
+	}
+
+	public void setFeature(String name, boolean value) throws SAXNotRecognizedException, SAXNotSupportedException {
+		if (getFeature(name) != value)
+			throw new SAXNotSupportedException(name);
+	}
+
+	public Object getProperty(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+		throw new SAXNotRecognizedException(name);
+	}
+
+	public void setProperty(String name, Object value) throws SAXNotRecognizedException, SAXNotSupportedException {
+		throw new SAXNotRecognizedException(name);
+	}
+
+	public void setEntityResolver(EntityResolver resolver) {
+		this.entityResolver = resolver;
+	}
+
+	public EntityResolver getEntityResolver() {
+		return entityResolver;
+	}
+
+	public void setDTDHandler(DTDHandler handler) {
+		this.dtdHandler = handler;
+	}
+
+	public DTDHandler getDTDHandler() {
+		return dtdHandler;
+	}
+
+	public void setContentHandler(ContentHandler handler) {
+		this.contentHandler = handler;
+	}
+
+	public ContentHandler getContentHandler() {
+		return contentHandler;
+	}
+
+	public void setErrorHandler(ErrorHandler handler) {
+		this.errorHandler = handler;
+	}
+
+	public ErrorHandler getErrorHandler() {
+		return errorHandler;
+	}
+
+	public void parse(InputSource input) throws IOException, SAXException {
+		XMLStreamReader stream;
+		try {
+			stream = createStreamReader(input);
+		} catch (XMLStreamException e) {
+			closeInput(input, e);
+			throw new SAXException(e);
+		}
+
+		StaxEventBridge bridge = new StaxEventBridge(stream, this);
+		try {
+			bridge.parse();
+		} finally {
+			try {
+				stream.close();
+			} catch (XMLStreamException e) {
+				// the document was read already
+			}
+			// the stream reader does not close the input, the SAX parsers do..
+			closeInput(input);
+		}
+	}
+
+	public void parse(String systemId) throws IOException, SAXException {
+		parse(new InputSource(systemId));
+	}
+}
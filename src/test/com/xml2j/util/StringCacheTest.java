@@ -0,0 +1,36 @@
+package com.xml2j.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class StringCacheTest {
+
+    @Test
+    void sharesEqualValues() {
+        StringCache cache = new StringCache(16);
+        char[] c = "xxEURxxUSDxxEUR".toCharArray();
+
+        String eur = cache.get(c, 2, 3);
+        Assertions.assertEquals( "EUR", eur );
+        Assertions.assertEquals( "USD", cache.get(c, 7, 3) );
+        Assertions.assertSame( eur, cache.get(c, 12, 3) );
+        Assertions.assertSame( eur, cache.get(new String("EUR")) );
+        Assertions.assertEquals( "", cache.get(c, 0, 0) );
+        Assertions.assertNull( cache.get(null) );
+
+        Assertions.assertEquals( 2, cache.getHits() );
+        Assertions.assertEquals( 3, cache.getMisses() );
+        Assertions.assertEquals( 0.4, cache.getHitRate(), 1e-9 );
+    }
+
+    @Test
+    void bounded() {
+        StringCache cache = new StringCache(4);
+        for (int i = 0; i != 1000; i++) {
+            char[] c = Integer.toString(i).toCharArray();
+            Assertions.assertEquals( Integer.toString(i), cache.get(c, 0, c.length) );
+        }
+        char[] longValue = new char[StringCache.MAX_LENGTH + 1];
+        Assertions.assertNotSame( cache.get(longValue, 0, longValue.length), cache.get(longValue, 0, longValue.length) );
+    }
+}
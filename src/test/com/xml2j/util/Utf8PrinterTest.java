@@ -0,0 +1,41 @@
+package com.xml2j.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class Utf8PrinterTest {
+
+    private static String print(int bufferSize, String... parts) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Utf8Printer out = new Utf8Printer(bytes, bufferSize);
+        for (String p : parts) {
+            out.print(p);
+        }
+        out.flush();
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void encodes() {
+        String s = "a\u00e9\u20ac\ud83d\ude00z";
+        Assertions.assertEquals( s, print(Utf8Printer.DEFAULT_BUFFER_SIZE, s) );
+        Assertions.assertEquals( s, print(4, s) );
+        // surrogate pair split over two calls..
+        Assertions.assertEquals( s, print(4, "a\u00e9\u20ac\ud83d", "\ude00z") );
+    }
+
+    @Test
+    void escapes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Utf8Printer out = new Utf8Printer(bytes);
+        out.printText("a < b & \"c\"");
+        out.print(" ");
+        out.printAttributeValue("x\"y\n");
+        out.flush();
+
+        Assertions.assertEquals( "a &lt; b &amp; \"c\" x&quot;y&#10;", new String(bytes.toByteArray(), StandardCharsets.UTF_8) );
+    }
+}
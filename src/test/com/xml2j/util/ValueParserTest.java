@@ -0,0 +1,77 @@
+package com.xml2j.util;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ValueParserTest {
+
+    static CharSequence slice(String s) {
+        char[] c = (" [" + s + "] ").toCharArray();
+        return new CharSlice(c, 2, s.length());
+    }
+
+    @Test
+    void integers() {
+        Assertions.assertEquals( 42, ValueParser.parseInt(slice(" +42\n")) );
+        Assertions.assertEquals( Integer.MIN_VALUE, ValueParser.parseInt("-2147483648") );
+        Assertions.assertEquals( Long.MAX_VALUE, ValueParser.parseLong("9223372036854775807") );
+        Assertions.assertEquals( Long.MIN_VALUE, ValueParser.parseLong("-9223372036854775808") );
+        Assertions.assertThrows( NumberFormatException.class, () -> ValueParser.parseInt("2147483648") );
+        Assertions.assertThrows( NumberFormatException.class, () -> ValueParser.parseLong("9223372036854775808") );
+        Assertions.assertThrows( NumberFormatException.class, () -> ValueParser.parseLong("1 2") );
+        Assertions.assertThrows( NumberFormatException.class, () -> ValueParser.parseLong("-") );
+        Assertions.assertThrows( NumberFormatException.class, () -> ValueParser.parseLong("") );
+    }
+
+    @Test
+    void doubles() {
+        String[] values = { "0", "-0", "1.5", ".5", "5.", "1e3", "1E-3", "-12.345e+2", "0.1", "3.141592653589793",
+                "123456789012345678901234567890", "1e-320", "2.2250738585072014E-308", "1e400", "0.000001" };
+        for (String v : values) {
+            Assertions.assertEquals( Double.parseDouble(v), ValueParser.parseDouble(slice(v)), v );
+        }
+        Random random = new Random(1);
+        for (int i = 0; i != 10000; i++) {
+            String v = Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20));
+            Assertions.assertEquals( Double.parseDouble(v), ValueParser.parseDouble(v), v );
+            v = Long.toString(random.nextLong() % 1000000000L) + "." + Math.abs(random.nextInt(100000));
+            Assertions.assertEquals( Double.parseDouble(v), ValueParser.parseDouble(v), v );
+        }
+        Assertions.assertEquals( Double.NEGATIVE_INFINITY, ValueParser.parseDouble("-INF") );
+        Assertions.assertTrue( Double.isNaN(ValueParser.parseDouble("NaN")) );
+        Assertions.assertThrows( NumberFormatException.class, () -> ValueParser.parseDouble("1e") );
+        Assertions.assertThrows( NumberFormatException.class, () -> ValueParser.parseDouble(".") );
+        Assertions.assertThrows( NumberFormatException.class, () -> ValueParser.parseDouble("0x10") );
+    }
+
+    @Test
+    void decimalsAndBooleans() {
+        String[] values = { "0", "-1.50", "+.5", "12345678901234567890.123", "00.010" };
+        for (String v : values) {
+            Assertions.assertEquals( new BigDecimal(v), ValueParser.parseDecimal(slice(v)), v );
+        }
+        Assertions.assertThrows( NumberFormatException.class, () -> ValueParser.parseDecimal("1e5") );
+        Assertions.assertTrue( ValueParser.parseBoolean(" true ") );
+        Assertions.assertFalse( ValueParser.parseBoolean(slice("0")) );
+        Assertions.assertThrows( IllegalArgumentException.class, () -> ValueParser.parseBoolean("yes") );
+    }
+
+    @Test
+    void dates() {
+        Assertions.assertEquals( LocalDate.of(2016, 2, 29), ValueParser.parseDate(slice("2016-02-29")) );
+        Assertions.assertEquals( LocalDate.of(2016, 2, 29), ValueParser.parseDate("2016-02-29+01:00") );
+        Assertions.assertEquals( OffsetDateTime.parse("2016-03-01T10:15:30.25+02:00"),
+                ValueParser.parseDateTime(slice("2016-03-01T10:15:30.25+02:00")) );
+        Assertions.assertEquals( OffsetDateTime.parse("2016-03-01T10:15:30Z"), ValueParser.parseDateTime("2016-03-01T10:15:30") );
+        Assertions.assertEquals( OffsetDateTime.parse("2016-03-02T00:00:00Z"), ValueParser.parseDateTime("2016-03-01T24:00:00Z") );
+        Assertions.assertThrows( DateTimeParseException.class, () -> ValueParser.parseDate("2015-02-29") );
+        Assertions.assertThrows( DateTimeParseException.class, () -> ValueParser.parseDate("2015-2-28") );
+        Assertions.assertThrows( DateTimeParseException.class, () -> ValueParser.parseDateTime("2016-03-01T10:15") );
+    }
+}
@@ -0,0 +1,102 @@
+package com.xml2j.xml.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class AttributeMapTest {
+
+    static class Element {}
+
+    static class Record {}
+
+    @Test
+    void insertionOrder() {
+        AttributeMap atts = new AttributeMap(AttributeMap.Layout.of(Element.class));
+        atts.put("b", "1");
+        atts.put("a", "2");
+        atts.put("c", "3");
+        atts.put("a", "4");
+
+        Iterator<Map.Entry<String, String>> i = atts.entrySet().iterator();
+        Assertions.assertEquals( "b", i.next().getKey() );
+        Assertions.assertEquals( "4", i.next().getValue() );
+        Assertions.assertEquals( "c", i.next().getKey() );
+        Assertions.assertFalse( i.hasNext() );
+
+        Assertions.assertEquals( "4", atts.remove("a") );
+        Assertions.assertNull( atts.get("a") );
+        Assertions.assertEquals( 2, atts.size() );
+    }
+
+    @Test
+    void sharedLayout() {
+        AttributeMap.Layout layout = AttributeMap.Layout.of(AttributeMapTest.class);
+        AttributeMap a1 = new AttributeMap(layout);
+        a1.put("id", "1");
+        a1.put("name", "x");
+
+        AttributeMap a2 = new AttributeMap(layout);
+        a2.put("name", "y");
+        a2.put("id", "2");
+
+        Assertions.assertEquals( "1", a1.get("id") );
+        Assertions.assertEquals( "x", a1.get("name") );
+        Assertions.assertEquals( "2", a2.get("id") );
+        Assertions.assertEquals( "y", a2.get("name") );
+    }
+
+    @Test
+    void serializeSharedLayout() throws IOException, ClassNotFoundException {
+        AttributeMap.Layout layout = AttributeMap.Layout.of(Record.class);
+        AttributeMap[] maps = { new AttributeMap(layout), new AttributeMap(layout) };
+        for (int i = 0; i != maps.length; i++) {
+            maps[i].put("id", "" + i);
+            maps[i].put("name", "n" + i);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(maps);
+        }
+        AttributeMap[] copies;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copies = (AttributeMap[]) in.readObject();
+        }
+
+        copies[0].clear();
+        copies[0].put("type", "t");
+        Assertions.assertEquals( "1", copies[1].get("id") );
+        Assertions.assertEquals( "n1", copies[1].get("name") );
+        Assertions.assertEquals( 2, copies[1].size() );
+        Assertions.assertEquals( "t", copies[0].get("type") );
+    }
+
+    @Test
+    void index() {
+        AttributeMap atts = new AttributeMap(null);
+        Map<String, String> expected = new HashMap<>();
+        for (int i = 0; i != 40; i++) {
+            atts.put("a" + i, "v" + i);
+            expected.put("a" + i, "v" + i);
+        }
+        for (int i = 0; i < 40; i += 3) {
+            atts.remove("a" + i);
+            expected.remove("a" + i);
+        }
+
+        Assertions.assertEquals( expected, atts );
+        Assertions.assertEquals( atts, expected );
+        Assertions.assertTrue( atts.containsKey("a1") );
+        Assertions.assertFalse( atts.containsKey("a3") );
+    }
+}
@@ -0,0 +1,106 @@
+package com.xml2j.xml.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BinaryCodecTest {
+
+    static class Item extends ComplexDataType {
+        private static final long serialVersionUID = 1L;
+        String name;
+
+        Item(String tagName, ComplexDataType parent) {
+            super(tagName, parent);
+        }
+
+        @Override
+        protected void writeFields(BinaryEncoder out) throws IOException {
+            out.writeString(name);
+        }
+
+        @Override
+        protected void readFields(BinaryDecoder in) throws IOException {
+            name = in.readString();
+        }
+    }
+
+    static class Catalog extends ComplexDataType {
+        private static final long serialVersionUID = 1L;
+        List<Item> items = new ArrayList<>();
+
+        Catalog(String tagName, ComplexDataType parent) {
+            super(tagName, parent);
+        }
+
+        @Override
+        protected void writeFields(BinaryEncoder out) throws IOException {
+            out.writeElements(items);
+        }
+
+        @Override
+        protected void readFields(BinaryDecoder in) throws IOException {
+            in.readElements(items, this, Item.class);
+        }
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        Catalog catalog = new Catalog("catalog", null);
+        catalog.setAttr("version", "2");
+        for (int i = 0; i != 3; i++) {
+            Item item = new Item("item", catalog);
+            item.setAttr("id", Integer.toString(i));
+            item.setContent("caf\u00e9 \ud83d\ude00 " + i);
+            item.name = i == 1 ? null : "n" + i;
+            catalog.items.add(item);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryEncoder out = new BinaryEncoder(bytes);
+        out.writeElement(catalog);
+        out.writeElement(catalog);
+        out.flush();
+
+        TypeRegistry registry = new TypeRegistry()
+                .register(Catalog.class, Catalog::new)
+                .register(Item.class, Item::new);
+        BinaryDecoder in = new BinaryDecoder(new ByteArrayInputStream(bytes.toByteArray()), registry);
+        for (int n = 0; n != 2; n++) {
+            Assertions.assertTrue( in.hasMore() );
+            Catalog copy = in.readElement(null, Catalog.class);
+            Assertions.assertEquals( catalog, copy );
+            Assertions.assertEquals( 3, copy.items.size() );
+            for (int i = 0; i != 3; i++) {
+                Item item = copy.items.get(i);
+                Assertions.assertEquals( catalog.items.get(i), item );
+                Assertions.assertEquals( catalog.items.get(i).name, item.name );
+                Assertions.assertSame( copy, item.getParent() );
+            }
+        }
+        Assertions.assertFalse( in.hasMore() );
+    }
+
+    @Test
+    void varints() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryEncoder out = new BinaryEncoder(bytes);
+        long[] values = { 0, -1, 1, Long.MIN_VALUE, Long.MAX_VALUE, 300 };
+        for (long v : values) {
+            out.writeVarLong(v);
+        }
+        out.writeVarInt(Integer.MAX_VALUE);
+        out.flush();
+
+        BinaryDecoder in = new BinaryDecoder(new ByteArrayInputStream(bytes.toByteArray()), new TypeRegistry());
+        for (long v : values) {
+            Assertions.assertEquals( v, in.readVarLong() );
+        }
+        Assertions.assertEquals( Integer.MAX_VALUE, in.readVarInt() );
+    }
+}
@@ -0,0 +1,29 @@
+package com.xml2j.xml.core;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.xml2j.xml.core.BinaryCodecTest.Item;
+
+class ComplexDataTypeTest {
+
+    @Test
+    void contentValues() {
+        ComplexDataType data = new Item("value", null);
+        Assertions.assertEquals( -1, data.getIntContent(-1) );
+        Assertions.assertEquals( -1L, data.getLongContent(-1L) );
+        Assertions.assertEquals( 0.5, data.getDoubleContent(0.5) );
+        Assertions.assertTrue( data.getBooleanContent(true) );
+        Assertions.assertNull( data.getDecimalContent() );
+        Assertions.assertNull( data.getDateContent() );
+
+        data.setContent("42");
+        Assertions.assertEquals( 42, data.getIntContent(-1) );
+        Assertions.assertEquals( 42L, data.getLongContent(-1L) );
+        Assertions.assertEquals( 42.0, data.getDoubleContent(0.5) );
+        Assertions.assertEquals( new BigDecimal("42"), data.getDecimalContent() );
+        Assertions.assertThrows( IllegalArgumentException.class, () -> data.getBooleanContent(true) );
+    }
+}
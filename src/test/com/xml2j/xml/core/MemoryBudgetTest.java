@@ -0,0 +1,131 @@
+package com.xml2j.xml.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.xml2j.xml.core.BinaryCodecTest.Item;
+
+class MemoryBudgetTest {
+
+    static class Group extends ComplexDataType {
+        private static final long serialVersionUID = 1L;
+        SpillList<Item> items = new SpillList<>(Item.class);
+
+        Group(String tagName, ComplexDataType parent) {
+            super(tagName, parent);
+        }
+
+        @Override
+        protected void writeFields(BinaryEncoder out) throws IOException {
+            out.writeElements(items);
+        }
+
+        @Override
+        protected void readFields(BinaryDecoder in) throws IOException {
+            in.readElements(items, this, Item.class);
+        }
+    }
+
+    static Item item(int i) {
+        Item item = new Item("item", null);
+        item.setAttr("id", Integer.toString(i));
+        item.name = "n" + i;
+        return item;
+    }
+
+    @Test
+    void fail() {
+        MemoryBudget budget = new MemoryBudget(1000);
+        SpillList<Item> items = new SpillList<>(Item.class);
+        Assertions.assertThrows( ProcessorException.class, () -> {
+            for (int i = 0; i != 100; i++) {
+                budget.link(d -> items.add((Item) d), item(i), budget.mark(), "catalog/item");
+            }
+        });
+        Assertions.assertTrue( items.size() < 100 );
+        Assertions.assertEquals( 0, items.getSpilledCount() );
+    }
+
+    @Test
+    void spill() {
+        MemoryBudget budget = new MemoryBudget(1000, new TypeRegistry().register(Item.class, Item::new), null);
+        SpillList<Item> items = new SpillList<>(Item.class);
+        for (int i = 0; i != 100; i++) {
+            budget.link(d -> items.add((Item) d), item(i), budget.mark(), "catalog/item");
+        }
+        Assertions.assertTrue( budget.getUsed() <= 1000 );
+        Assertions.assertTrue( items.getSpilledCount() > 50 );
+        Assertions.assertEquals( items.getSpilledCount(), budget.getSpilledCount() );
+        for (int i = 0; i != 100; i++) {
+            Assertions.assertEquals( item(i), items.get(i) );
+            Assertions.assertEquals( "n" + i, items.get(i).name );
+        }
+
+        Assertions.assertEquals( "n3", items.remove(3).name );
+        Assertions.assertEquals( "n4", items.get(3).name );
+        budget.close();
+        Assertions.assertEquals( 0, budget.getUsed() );
+    }
+
+    @Test
+    void replace() {
+        MemoryBudget budget = new MemoryBudget(1000, new TypeRegistry().register(Item.class, Item::new), null);
+        SpillList<Item> items = new SpillList<>(Item.class);
+        for (int i = 0; i != 100; i++) {
+            budget.link(d -> items.add((Item) d), item(i), budget.mark(), "catalog/item");
+        }
+        int spilled = items.getSpilledCount();
+        long used = budget.getUsed();
+
+        Assertions.assertEquals( "n0", items.set(0, item(0)).name );
+        Assertions.assertEquals( spilled - 1, items.getSpilledCount() );
+        Assertions.assertEquals( used, budget.getUsed() );
+
+        items.remove(99);
+        Assertions.assertEquals( used - SizeEstimator.DEFAULT.estimate(item(99)), budget.getUsed() );
+        items.clear();
+        Assertions.assertEquals( 0, items.getSpilledCount() );
+        Assertions.assertEquals( 0, budget.getUsed() );
+        budget.close();
+    }
+
+    @Test
+    void spillNested() throws IOException {
+        File directory = Files.createTempDirectory("xml2j").toFile();
+        MemoryBudget budget = new MemoryBudget(2000,
+                new TypeRegistry().register(Item.class, Item::new).register(Group.class, Group::new), directory);
+        SpillList<Group> groups = new SpillList<>(Group.class);
+        for (int g = 0; g != 20; g++) {
+            long mark = budget.mark();
+            Group group = new Group("group", null);
+            for (int i = 0; i != 10; i++) {
+                budget.link(d -> group.items.add((Item) d), item(g * 10 + i), budget.mark(), "catalog/group/item");
+            }
+            budget.link(d -> groups.add((Group) d), group, mark, "catalog/group");
+        }
+        Assertions.assertTrue( groups.getSpilledCount() > 0 );
+
+        // the groups and items in memory are charged exactly once..
+        long expected = 0;
+        for (int g = groups.getSpilledCount(); g != groups.size(); g++) {
+            Group group = groups.get(g);
+            expected += SizeEstimator.DEFAULT.estimate(group);
+            for (int i = group.items.getSpilledCount(); i != group.items.size(); i++) {
+                expected += SizeEstimator.DEFAULT.estimate(group.items.get(i));
+            }
+        }
+        Assertions.assertEquals( expected, budget.getUsed() );
+        for (int g = 0; g != 20; g++) {
+            Assertions.assertEquals( 10, groups.get(g).items.size() );
+            Assertions.assertEquals( "n" + (g * 10 + 9), groups.get(g).items.get(9).name );
+        }
+        Assertions.assertEquals( 1, directory.list().length );
+        budget.close();
+        Assertions.assertEquals( 0, directory.list().length );
+        Assertions.assertTrue( directory.delete() );
+    }
+}
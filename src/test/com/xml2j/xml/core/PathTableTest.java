@@ -0,0 +1,52 @@
+package com.xml2j.xml.core;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PathTableTest {
+
+    @Test
+    void resolve() {
+        Properties p = new Properties();
+        p.setProperty("root/@process", "true");
+        p.setProperty("root/items/item/@process", "true");
+        p.setProperty("**/item/@detach", "true");
+        p.setProperty("root/other/item/@detach", "false");
+        p.setProperty("root/*/note/@process", "TRUE");
+
+        PathTable table = PathTable.compile(p);
+
+        Assertions.assertTrue( table.resolve("root").isProcess() );
+        Assertions.assertFalse( table.resolve("root").isDetach() );
+
+        Assertions.assertTrue( table.resolve("root/items/item").isProcess() );
+        Assertions.assertTrue( table.resolve("root/items/item").isDetach() );
+        Assertions.assertTrue( table.resolve("item").isDetach() );
+        Assertions.assertFalse( table.resolve("root/other/item").isDetach() );
+
+        Assertions.assertTrue( table.resolve("root/items/note").isProcess() );
+        Assertions.assertFalse( table.resolve("root/items/x/note").isProcess() );
+
+        Assertions.assertEquals( "true", table.getProperty("root/@process") );
+        Assertions.assertNull( table.resolve("root/items").getSetting(PathTable.PROCESS) );
+    }
+
+    @Test
+    public void testIsUsed()
+    {
+        Properties p = new Properties();
+        p.setProperty("root/@process", "true");
+        p.setProperty("**/blob/@skip", "true");
+        p.setProperty("root/items/@detach", "false");
+
+        PathTable table = PathTable.compile(p);
+
+        Assertions.assertTrue( table.isUsed(PathTable.PROCESS) );
+        Assertions.assertTrue( table.isUsed(PathTable.SKIP) );
+        Assertions.assertFalse( table.isUsed(PathTable.DETACH) );
+        Assertions.assertFalse( table.isUsed(PathTable.DEDUP) );
+        Assertions.assertTrue( table.resolve("root/items/blob").isSet(PathTable.SKIP) );
+    }
+}
@@ -0,0 +1,69 @@
+package com.xml2j.xml.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.xml2j.xml.core.BinaryCodecTest.Catalog;
+import com.xml2j.xml.core.BinaryCodecTest.Item;
+
+class RecordArenaTest {
+
+    @Test
+    void accessors() {
+        RecordArena arena = new RecordArena();
+        Item item = new Item("item", null);
+        item.setAttr("id", "7");
+        item.setAttr("empty", null);
+        item.setContent("  text  ");
+        item.name = "seven";
+
+        RecordArena.Record record = arena.add(item);
+        Assertions.assertEquals( "item", record.getXMLElementName() );
+        Assertions.assertEquals( 2, record.getAttributeCount() );
+        Assertions.assertEquals( "id", record.getAttrName(0) );
+        Assertions.assertEquals( "7", record.getAttr("id") );
+        Assertions.assertNull( record.getAttrValue(1) );
+        Assertions.assertNull( record.getAttr("missing") );
+        Assertions.assertEquals( "text", record.getContent() );
+        Assertions.assertEquals( "ex", record.getContentSequence().subSequence(1, 3).toString() );
+
+        Catalog catalog = new Catalog("catalog", null);
+        catalog.items.add(item);
+        TypeRegistry registry = new TypeRegistry()
+                .register(Catalog.class, Catalog::new)
+                .register(Item.class, Item::new);
+        Catalog copy = (Catalog) arena.add(catalog).materialize(registry);
+        Assertions.assertEquals( catalog, copy );
+        Assertions.assertEquals( item, copy.items.get(0) );
+        Assertions.assertEquals( "seven", copy.items.get(0).name );
+
+        record.release();
+        Assertions.assertThrows( IllegalStateException.class, record::getContent );
+    }
+
+    @Test
+    void segmentsAreReused() {
+        RecordArena arena = new RecordArena(4096, 4);
+        Item item = new Item("item", null);
+        item.setContent(new String(new char[500]).replace('\0', 'x'));
+
+        for (int round = 0; round != 10; round++) {
+            List<RecordArena.Record> records = new ArrayList<>();
+            for (int i = 0; i != 40; i++) {
+                records.add(arena.add(item));
+            }
+            for (RecordArena.Record r : records) {
+                Assertions.assertEquals( 500, r.getContentSequence().length() );
+                r.release();
+            }
+        }
+        Assertions.assertTrue( arena.getSegmentCount() <= 6, "segments: " + arena.getSegmentCount() );
+
+        item.setContent(new String(new char[5000]).replace('\0', 'y'));
+        RecordArena.Record large = arena.add(item);
+        Assertions.assertEquals( item.getContent(), large.getContent() );
+    }
+}
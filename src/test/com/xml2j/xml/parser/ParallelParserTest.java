@@ -0,0 +1,189 @@
+package com.xml2j.xml.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import com.xml2j.xml.core.ComplexDataType;
+import com.xml2j.xml.core.DataSetter;
+import com.xml2j.xml.core.MessageHandler;
+import com.xml2j.xml.core.MessageProcessor;
+import com.xml2j.xml.core.ParserConfiguration;
+import com.xml2j.xml.core.XMLEvent;
+import com.xml2j.xml.core.XMLFragmentHandler;
+import com.xml2j.xml.core.XMLMessageHandler;
+
+class ParallelParserTest {
+
+    static class Item extends ComplexDataType {
+        private static final long serialVersionUID = 1L;
+        String name;
+
+        Item(String tagName, ComplexDataType parent) {
+            super(tagName, parent);
+        }
+    }
+
+    static class Catalog extends ComplexDataType {
+        private static final long serialVersionUID = 1L;
+
+        Catalog(String tagName, ComplexDataType parent) {
+            super(tagName, parent);
+        }
+    }
+
+    static class ItemHandler extends XMLFragmentHandler<Item> {
+        ItemHandler(ParserTask task, XMLReader reader, XMLFragmentHandler<?> parent, String name, DataSetter setter, boolean process) {
+            super(task, reader, parent, name, Item::new, setter, process);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (localName.equals(getXMLElementName())) {
+                handleElement();
+            } else if (localName.equals("name")) {
+                getData().name = getValue();
+            }
+        }
+    }
+
+    static class CatalogHandler extends XMLFragmentHandler<Catalog> {
+        CatalogHandler(ParserTask task, XMLReader reader, boolean process) {
+            super(task, reader, null, "catalog", Catalog::new, null, process);
+            registerHandler(new HandlerProxy<Item>(task, reader, this, "item", null,
+                    new HandlerProxy.Allocator<Item>() {
+                        @Override
+                        public XMLFragmentHandler<Item> create(ParserTask task, XMLReader reader,
+                                XMLFragmentHandler<?> parent, String name, DataSetter setter, boolean process) {
+                            return new ItemHandler(task, reader, parent, name, setter, process);
+                        }
+                    }, doProcess("item")) {});
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (localName.equals(getXMLElementName())) {
+                handleElement();
+            }
+        }
+    }
+
+    static class CatalogMessageHandler extends XMLMessageHandler<Catalog> {
+        CatalogMessageHandler(ParserTask task, XMLReader reader) {
+            super(reader, new CatalogHandler(task, reader, doProcess("catalog", task)));
+        }
+    }
+
+    static class Task extends ParserRunnable {
+        Task(ParserConfiguration configuration) throws SAXException, IOException {
+            super(configuration);
+        }
+
+        @Override
+        protected MessageHandler getMessageHandler(XMLReader reader) {
+            return new CatalogMessageHandler(this, reader);
+        }
+    }
+
+    static File properties;
+    static Path document;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        properties = File.createTempFile("xml2j", ".properties");
+        try (PrintWriter w = new PrintWriter(properties, "UTF-8")) {
+            w.println("#XML2J-PROPERTIES");
+            w.println("catalog/item/@process=true");
+            w.println("catalog/item/@detach=true");
+        }
+
+        // records of different sizes, so the ranges are cut inside records at
+        // different offsets; names that start with the record name, '>' in
+        // attribute values and multi-byte characters must not be taken for
+        // record boundaries..
+        StringBuilder xml = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>\n");
+        xml.append("<catalog xmlns='urn:c' version='1'><items-title>T</items-title>\n");
+        for (int i = 0; i != 997; i++) {
+            if (i % 5 == 0) {
+                xml.append("<item id='").append(i).append("' note='a>b &lt;item'/>");
+            } else {
+                xml.append("<item id='").append(i).append("'><itemx>x</itemx><name>n\u00e9").append(i);
+                for (int j = 0; j != i % 13; j++) {
+                    xml.append('.');
+                }
+                xml.append("</name></item>\n");
+            }
+        }
+        xml.append("<!-- end --></catalog>\n");
+        document = Files.createTempFile("xml2j", ".xml");
+        Files.write(document, xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        Files.deleteIfExists(document);
+        Files.deleteIfExists(properties.toPath());
+    }
+
+    static MessageProcessor collect(List<String> records) {
+        return (evt, data) -> {
+            if (evt == XMLEvent.END) {
+                String record = data.getXMLElementName() + " " + data.getAttr("id") + " " + ((Item) data).name;
+                synchronized (records) {
+                    records.add(record);
+                }
+            }
+        };
+    }
+
+    @Test
+    void split() throws IOException {
+        try (FileChannel channel = FileChannel.open(document, StandardOpenOption.READ)) {
+            RecordScanner scanner = new RecordScanner(channel, "item");
+            byte[] bytes = Files.readAllBytes(document);
+            for (int n = 1; n != 40; n++) {
+                long[] bounds = scanner.split(n);
+                Assertions.assertEquals( scanner.first(), bounds[0] );
+                Assertions.assertEquals( scanner.trailer(), bounds[bounds.length - 1] );
+                for (int i = 1; i < bounds.length - 1; i++) {
+                    Assertions.assertTrue( bounds[i] > bounds[i - 1] );
+                    Assertions.assertEquals( "<item ", new String(bytes, (int) bounds[i], 6, StandardCharsets.UTF_8) );
+                }
+            }
+        }
+    }
+
+    @Test
+    void parallel() throws IOException, SAXException {
+        ParserConfiguration configuration = new ParserConfiguration(properties.getAbsolutePath());
+        List<String> expected = new ArrayList<>();
+        Task task = new Task(configuration);
+        task.prepareStart(document, collect(expected));
+        task.processXML();
+        task.discard();
+        Assertions.assertEquals( 997, expected.size() );
+        Collections.sort(expected);
+
+        for (int parallelism : new int[] { 1, 2, 3, 7, 16 }) {
+            List<String> records = new ArrayList<>();
+            new ParallelParser(() -> new Task(configuration), parallelism).parse(document, "catalog/item", collect(records));
+            Collections.sort(records);
+            Assertions.assertEquals( expected, records, "parallelism " + parallelism );
+        }
+    }
+}